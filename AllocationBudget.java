@@ -0,0 +1,217 @@
+/**
+ * AllocationBudget.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java AllocationBudget"
+ * (optionally followed by the number of warm-up ticks and the
+ * number of measured ticks, eg. "java AllocationBudget 10000 800").
+ *
+ * Checks that the tick loop stays allocation-free. Each
+ * configuration runs a seeded simulation without a window and
+ * counts the bytes that the thread allocates over the measured
+ * ticks with the JVM's per-thread allocation counter. The
+ * measured ticks start once the first infections have spread and
+ * must all fall while people are still infected, so that
+ * infections, deaths, the infection tree, and the list of the
+ * dead are measured, not just people moving after the epidemic
+ * is over; a configuration whose epidemic ends too soon fails.
+ * The warm-up period runs those same ticks from the same seed
+ * over and over, so that the JIT has compiled every path that
+ * they take before they are measured, rather than throwing away
+ * compiled code and recompiling it (which allocates a few
+ * kilobytes) part way through. Each configuration is measured
+ * once.
+ * A table of bytes per tick is printed, and the program exits
+ * with status 1 if any configuration is over its budget (or 2 if
+ * allocation cannot be measured), so a build script can fail on
+ * a regression.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+public class AllocationBudget
+{
+	/**
+	 * The default number of ticks run before measuring: twice the number of
+	 * calls after which HotSpot compiles a method with its optimizing compiler,
+	 * so that methods called once a tick (such as Simulation.commitEvents())
+	 * have been compiled before measuring, not during it
+	 */
+	private static final int WARM_UP_TICKS = 10000;
+
+	/** The default number of ticks measured (every configuration still has people infected that long) */
+	private static final int MEASURED_TICKS = 800;
+
+	/** The tick that measuring starts at, once the first infections have spread */
+	private static final int MEASURE_FROM = 100;
+
+	/** The seed of the replica measured */
+	private static final long SEED = 1;
+
+	/**
+	 * A simulation to measure and the most it may allocate
+	 */
+	private static class Budget
+	{
+		private final String name;
+		private final int people, rooms;
+		private final double shelterInPlaceRate, bytesPerTick;
+		private final boolean exporting, profiling;
+
+		/**
+		 * Instantiates a Budget object
+		 * @param name the name shown in the table
+		 * @param people the number of people
+		 * @param rooms the number of rooms
+		 * @param shelterInPlaceRate the fraction of people sheltering-in-place
+		 * @param exporting whether the counts and tick times are exported every tick
+		 * @param profiling whether every tick is timed by the profiler
+		 * @param bytesPerTick the most bytes that a tick may allocate on average
+		 */
+		private Budget(String name, int people, int rooms, double shelterInPlaceRate, boolean exporting, boolean profiling,
+			double bytesPerTick)
+		{
+			this.name = name;
+			this.people = people;
+			this.rooms = rooms;
+			this.shelterInPlaceRate = shelterInPlaceRate;
+			this.exporting = exporting;
+			this.profiling = profiling;
+			this.bytesPerTick = bytesPerTick;
+		}
+	}
+
+	/** The configurations measured, with their budgets */
+	private static final Budget[] BUDGETS = {
+		new Budget("small", 200, 0, 0.2, false, false, 1),
+		new Budget("rooms", 1000, 3, 0.2, false, false, 1),
+		new Budget("sheltering", 1000, 0, 0.8, false, false, 1),
+		new Budget("crowded", 3000, 5, 0.2, false, false, 1),
+		new Budget("exporting", 1000, 3, 0.2, true, false, 1),
+		new Budget("profiling", 1000, 3, 0.2, false, true, 1),
+	};
+
+	/**
+	 * Measures every configuration and exits with a failing status if any is over budget
+	 * @param args the number of warm-up ticks and the number of measured ticks (both optional)
+	 */
+	public static void main(String[] args)
+	{
+		int warmUp = args.length > 0 ? Integer.parseInt(args[0]) : WARM_UP_TICKS;
+		int measured = args.length > 1 ? Integer.parseInt(args[1]) : MEASURED_TICKS;
+		if (AllocationCounter.currentThreadAllocatedBytes() < 0)
+		{
+			System.err.println("This JVM cannot count allocations per thread");
+			System.exit(2);
+		}
+
+		System.out.printf("%-12s %8s %14s %10s%n", "config", "people", "bytes/tick", "budget");
+		int failures = 0;
+		for (Budget budget : BUDGETS)
+		{
+			double bytesPerTick;
+			try
+			{
+				bytesPerTick = measure(budget, warmUp, measured);
+			}
+			catch (IOException | IllegalStateException e)
+			{
+				System.err.println(budget.name + ": " + e.getMessage());
+				failures++;
+				continue;
+			}
+			boolean over = bytesPerTick > budget.bytesPerTick;
+			if (over)
+				failures++;
+			System.out.printf("%-12s %8d %14.1f %10.1f%s%n", budget.name, budget.people, bytesPerTick, budget.bytesPerTick,
+				over ? "  OVER BUDGET" : "");
+		}
+		if (failures > 0)
+		{
+			System.err.println(failures + " configuration(s) over budget");
+			System.exit(1);
+		}
+		System.out.println("All configurations within budget");
+	}
+
+	/**
+	 * Runs one configuration and measures how much its ticks allocate while
+	 * the epidemic is still spreading: a new simulation is created from SEED
+	 * and its ticks from MEASURE_FROM on are measured. The warm-up runs the
+	 * very same ticks first, each time from a new simulation of SEED, so that
+	 * the JIT has seen every branch that the measured ticks take and has
+	 * nothing left to recompile while they run. New simulations are used
+	 * rather than reset ones, whose lists and arrays would already have grown,
+	 * so that growing them as the epidemic spreads is measured too
+	 * @param budget the configuration
+	 * @param warmUp the number of ticks run before measuring (rounded up to whole runs of the measured ticks)
+	 * @param measured the number of ticks measured
+	 * @return the average number of bytes allocated per tick
+	 * @throws IOException if the export file cannot be written
+	 * @throws IllegalStateException if nobody was infected any more before the measured ticks ended
+	 */
+	private static double measure(Budget budget, int warmUp, int measured) throws IOException
+	{
+		SimulationConfig config = new SimulationConfig(budget.people, 0.6, budget.shelterInPlaceRate, 0.3, budget.rooms);
+		File file = null;
+		TimeSeriesWriter exporter = null;
+		if (budget.exporting)
+		{
+			file = File.createTempFile("allocation-budget", ".vsts");
+			exporter = new TimeSeriesWriter(file, true);
+		}
+		try
+		{
+			for (int ticks = 0; ticks < warmUp; )
+			{
+				Simulation simulation = create(budget, config, SEED, exporter);
+				for (; simulation.getTickCount() < MEASURE_FROM + measured && !simulation.isFinished(); ticks++)
+					simulation.tick();
+			}
+
+			Simulation simulation = create(budget, config, SEED, exporter);
+			while (simulation.getTickCount() < MEASURE_FROM && !simulation.isFinished())
+				simulation.tick();
+			AllocationCounter counter = new AllocationCounter();
+			counter.start();
+			for (int i = 0; i < measured; i++)
+			{
+				if (simulation.isFinished() || simulation.getCount(1) == 0)
+					throw new IllegalStateException("nobody was infected any more at tick " + simulation.getTickCount()
+						+ ", before the " + measured + " measured ticks from tick " + MEASURE_FROM + " ended");
+				simulation.tick();
+			}
+			return counter.stop() / (double)Math.max(1, measured);
+		}
+		finally
+		{
+			if (exporter != null)
+				exporter.close();
+			if (file != null)
+				file.delete();
+		}
+	}
+
+	/**
+	 * Creates a simulation of one configuration
+	 * @param budget the configuration
+	 * @param config the simulation's parameters
+	 * @param seed the seed
+	 * @param exporter the file to export to, or null
+	 * @return the simulation
+	 * @throws IOException if the export file cannot be written
+	 */
+	private static Simulation create(Budget budget, SimulationConfig config, long seed, TimeSeriesWriter exporter)
+		throws IOException
+	{
+		Simulation simulation = new Simulation(config, seed);
+		simulation.setExporter(exporter);
+		if (budget.profiling)
+			simulation.getProfiler().setSampleInterval(1);
+		return simulation;
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * AllocationCounter.java
+ *
+ * Counts the bytes allocated on the current thread between a
+ * call to start() and a call to stop(), using the JVM's
+ * per-thread allocation counter. This is used to check that a
+ * path which is supposed to be allocation-free (such as drawing
+ * a frame) really does allocate nothing once it has warmed up.
+ * If the JVM does not support per-thread allocation counting,
+ * every measurement reads -1.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.lang.management.ManagementFactory;
+
+public class AllocationCounter
+{
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+	private long start, allocated;
+
+	/**
+	 * Instantiates an AllocationCounter object
+	 */
+	public AllocationCounter()
+	{
+		allocated = -1;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread since it started
+	 * @return the number of bytes, or -1 if this cannot be measured
+	 */
+	public static long currentThreadAllocatedBytes()
+	{
+		return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Starts counting allocations on the current thread
+	 */
+	public void start()
+	{
+		start = currentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Stops counting allocations on the current thread
+	 * @return the number of bytes allocated since start() was called, or -1 if unknown
+	 */
+	public long stop()
+	{
+		allocated = start < 0 ? -1 : currentThreadAllocatedBytes() - start;
+		return allocated;
+	}
+
+	/**
+	 * Returns the number of bytes allocated during the last measurement
+	 * @return the number of bytes, or -1 if unknown
+	 */
+	public long getAllocated()
+	{
+		return allocated;
+	}
+
+	/**
+	 * Looks up the bean that counts allocations per thread
+	 * @return the bean, or null if allocation counting is not supported
+	 */
+	private static com.sun.management.ThreadMXBean threadBean()
+	{
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		if (!bean.isThreadAllocatedMemorySupported())
+			return null;
+		bean.setThreadAllocatedMemoryEnabled(true);
+		return bean;
+	}
+}
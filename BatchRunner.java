@@ -0,0 +1,268 @@
+/**
+ * BatchRunner.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java BatchRunner"
+ * (optionally followed by the number of people, the infection
+ * rate, the fraction sheltering-in-place, the death rate, the
+ * number of rooms, the half-width wanted for every confidence
+ * interval, the least and most replicas to run, the number of
+ * threads, the first seed, and the number of ticks that the counts
+ * must stay the same for to end a replica early (0, the default,
+ * waits for nobody to be infected), eg.
+ * "java BatchRunner 500 0.6 0.2 0.3 3 0.01 10 1000 4 1 300").
+ *
+ * Runs headless replicas of one simulation, each from its own
+ * seed, until nobody is infected, the counts stop changing, or
+ * MAX_TICKS have run (tallying which), and summarizes the final
+ * fractions uninfected, cured, and dead, the peak fraction
+ * infected, and how many ticks it took with RunningStatistics.
+ * Rather than running a fixed number of replicas, it stops
+ * launching them as soon as the 95% confidence interval of every
+ * fraction is no wider than the given half-width on each side
+ * (after at least the least number of replicas, so that an early
+ * run of similar results cannot stop it too soon), which usually
+ * needs far fewer replicas than a fixed batch sized for the worst
+ * case. Replicas run on several threads, but their results are
+ * added in seed order and those past the stopping point are
+ * dropped, so the same arguments always give the same summary
+ * whatever the number of threads.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BatchRunner
+{
+	/** The default number of people */
+	private static final int PEOPLE = 500;
+
+	/** The default rates */
+	private static final double INFECT_RATE = 0.6, SHELTER_IN_PLACE_RATE = 0.2, DEATH_RATE = 0.3;
+
+	/** The default number of rooms */
+	private static final int ROOMS = 3;
+
+	/** The default half-width wanted for the confidence interval of every fraction */
+	private static final double HALF_WIDTH = 0.01;
+
+	/** The default least number of replicas */
+	private static final int MIN_RUNS = 10;
+
+	/** The default most number of replicas */
+	private static final int MAX_RUNS = 1000;
+
+	/** The most ticks that a replica may take before it is cut off */
+	private static final int MAX_TICKS = 100000;
+
+	/** The number of replicas between progress reports */
+	private static final int REPORT_EVERY = 10;
+
+	/** The outcomes of a replica, in the order of its results (which end with why it finished) */
+	private static final String[] OUTCOMES = {"uninfected", "cured", "dead", "peak infected", "ticks"};
+
+	/** The number of outcomes (from the start) that are fractions, which must reach the half-width */
+	private static final int FRACTIONS = 4;
+
+	private final SimulationConfig config;
+	private final int minRuns, maxRuns, steadyTicks;
+	private final double halfWidth;
+	private final long firstSeed;
+	private final RunningStatistics[] statistics;
+	private final HashMap<Long, double[]> finished;
+	private final AtomicLong launched;
+	private final long[] outcomeCounts;
+	private long added;
+	private volatile boolean stopped;
+
+	/**
+	 * Instantiates a BatchRunner object
+	 * @param config the number of people, the rates of the virus, and the number of rooms in each replica
+	 * @param halfWidth the half-width wanted for the confidence interval of every fraction
+	 * @param minRuns the least number of replicas
+	 * @param maxRuns the most number of replicas
+	 * @param firstSeed the seed of the first replica (the others follow it)
+	 * @param steadyTicks the number of ticks that the counts must stay the same for to end a replica (0 to wait for extinction)
+	 */
+	public BatchRunner(SimulationConfig config, double halfWidth, int minRuns, int maxRuns, long firstSeed, int steadyTicks)
+	{
+		this.config = config;
+		this.halfWidth = halfWidth;
+		this.minRuns = Math.max(2, minRuns);
+		this.maxRuns = Math.max(this.minRuns, maxRuns);
+		this.firstSeed = firstSeed;
+		this.steadyTicks = steadyTicks;
+		outcomeCounts = new long[Simulation.Outcome.values().length];
+		statistics = new RunningStatistics[OUTCOMES.length];
+		for (int i = 0; i < statistics.length; i++)
+			statistics[i] = new RunningStatistics();
+		finished = new HashMap<Long, double[]>();
+		launched = new AtomicLong();
+	}
+
+	/**
+	 * Runs replicas until every confidence interval is narrow enough or the most replicas have run
+	 * @param args the number of people, the rates, the number of rooms, the half-width, the least
+	 *             and most replicas, the number of threads, the first seed, and the steady ticks (all optional)
+	 */
+	public static void main(String[] args)
+	{
+		BatchRunner batch = new BatchRunner(new SimulationConfig(
+			args.length > 0 ? Integer.parseInt(args[0]) : PEOPLE,
+			args.length > 1 ? Double.parseDouble(args[1]) : INFECT_RATE,
+			args.length > 2 ? Double.parseDouble(args[2]) : SHELTER_IN_PLACE_RATE,
+			args.length > 3 ? Double.parseDouble(args[3]) : DEATH_RATE,
+			args.length > 4 ? Integer.parseInt(args[4]) : ROOMS),
+			args.length > 5 ? Double.parseDouble(args[5]) : HALF_WIDTH,
+			args.length > 6 ? Integer.parseInt(args[6]) : MIN_RUNS,
+			args.length > 7 ? Integer.parseInt(args[7]) : MAX_RUNS,
+			args.length > 9 ? Long.parseLong(args[9]) : 1,
+			args.length > 10 ? Integer.parseInt(args[10]) : 0);
+		int threads = args.length > 8 ? Integer.parseInt(args[8]) : Runtime.getRuntime().availableProcessors();
+		try
+		{
+			batch.run(threads);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		batch.printSummary();
+	}
+
+	/**
+	 * Runs replicas on the given number of threads until the batch stops
+	 * @param threads the number of threads
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public void run(int threads) throws InterruptedException
+	{
+		Thread[] workers = new Thread[Math.max(1, threads)];
+		for (int i = 0; i < workers.length; i++)
+		{
+			workers[i] = new Thread(this::work, "batch-" + i);
+			workers[i].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+	}
+
+	/**
+	 * Launches replicas one after another until the batch stops, resetting
+	 * one simulation for each rather than creating a new one
+	 */
+	private void work()
+	{
+		Simulation simulation = null;
+		while (!stopped)
+		{
+			long run = launched.getAndIncrement();
+			if (run >= maxRuns)
+				return;
+			if (simulation == null)
+			{
+				simulation = new Simulation(config, firstSeed + run);
+				simulation.setTermination(steadyTicks, MAX_TICKS);
+			}
+			else
+				simulation.reset(config, firstSeed + run);
+			double[] outcomes = runReplica(simulation);
+			if (outcomes != null)
+				finish(run, outcomes);
+		}
+	}
+
+	/**
+	 * Runs one replica until it finishes (or the batch stops)
+	 * @param simulation the replica, at its first tick
+	 * @return the outcomes, or null if the batch stopped first
+	 */
+	private double[] runReplica(Simulation simulation)
+	{
+		int people = config.getPeople();
+		while (!simulation.isFinished())
+		{
+			if (stopped)
+				return null;
+			simulation.tick();
+		}
+		return new double[] {simulation.getCount(0) / (double)people, simulation.getCount(2) / (double)people,
+			simulation.getCount(3) / (double)people, simulation.getPeakInfected() / (double)people,
+			simulation.getTickCount(), simulation.getOutcome().ordinal()};
+	}
+
+	/**
+	 * Adds a replica's outcomes once every replica before it has been added,
+	 * stopping the batch when every confidence interval is narrow enough
+	 * @param run the number of the replica (from 0)
+	 * @param outcomes its outcomes
+	 */
+	private synchronized void finish(long run, double[] outcomes)
+	{
+		finished.put(run, outcomes);
+		while (!stopped && finished.containsKey(added))
+		{
+			double[] next = finished.remove(added++);
+			for (int i = 0; i < statistics.length; i++)
+				statistics[i].add(next[i]);
+			outcomeCounts[(int)next[statistics.length]]++;
+			if (added % REPORT_EVERY == 0)
+				System.out.printf("%5d replicas, widest interval +/- %.4f%n", added, getWidestHalfWidth());
+			if (added >= maxRuns || added >= minRuns && getWidestHalfWidth() <= halfWidth)
+				stopped = true;
+		}
+	}
+
+	/**
+	 * Returns the half-width of the widest confidence interval of a fraction
+	 * @return the half-width
+	 */
+	public synchronized double getWidestHalfWidth()
+	{
+		double widest = 0;
+		for (int i = 0; i < FRACTIONS; i++)
+			widest = Math.max(widest, statistics[i].getHalfWidth());
+		return widest;
+	}
+
+	/**
+	 * Returns the number of replicas whose outcomes were added
+	 * @return the number of replicas
+	 */
+	public synchronized long getRuns()
+	{
+		return added;
+	}
+
+	/**
+	 * Returns the statistics of one outcome
+	 * @param outcome the outcome (0 uninfected, 1 cured, 2 dead, 3 peak infected, 4 ticks)
+	 * @return the statistics over the replicas added
+	 */
+	public synchronized RunningStatistics getStatistics(int outcome)
+	{
+		return statistics[outcome];
+	}
+
+	/**
+	 * Prints the statistics of every outcome and why the batch stopped
+	 */
+	public synchronized void printSummary()
+	{
+		double widest = getWidestHalfWidth();
+		System.out.printf("%d replicas of %d people; %s%n", added, config.getPeople(), widest <= halfWidth
+			? String.format("every interval is within +/- %.4f", halfWidth)
+			: String.format("stopped at the most replicas with an interval of +/- %.4f", widest));
+		StringBuilder finished = new StringBuilder();
+		for (Simulation.Outcome outcome : Simulation.Outcome.values())
+			if (outcomeCounts[outcome.ordinal()] > 0)
+				finished.append(finished.length() == 0 ? "" : ", ").append(outcomeCounts[outcome.ordinal()]).append(' ')
+					.append(outcome.name().toLowerCase());
+		System.out.println("Finished: " + finished);
+		for (int i = 0; i < OUTCOMES.length; i++)
+			System.out.printf("  %-14s %s%n", OUTCOMES[i], statistics[i]);
+	}
+}
@@ -0,0 +1,225 @@
+/**
+ * Checkpointer.java
+ *
+ * Saves the full state of a simulation to disk so that a long
+ * run can be resumed exactly after it is stopped or crashes.
+ * Saving happens in two steps: the simulation thread copies its
+ * state into a reusable buffer (a quick, linear copy between
+ * ticks), and a background thread then checksums the buffer and
+ * writes it out through a FileChannel. The checkpoint is written
+ * to a temporary file that replaces the old checkpoint only once
+ * it is complete, so a crash while writing never leaves a broken
+ * checkpoint behind. If the previous checkpoint is still being
+ * written, a new one is skipped rather than making the
+ * simulation wait.
+ *
+ * A checkpoint file is a header (int magic "VSCP", int version,
+ * long length of the state, long CRC-32 of the state) followed by
+ * the state written by Simulation.writeState, all big-endian.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class Checkpointer
+{
+	/** The first int of every checkpoint ("VSCP") */
+	public static final int MAGIC = 0x56534350;
+
+	/** The version of the checkpoint layout written */
+	public static final int VERSION = 5;
+
+	/** The size of the header in bytes */
+	public static final int HEADER_SIZE = 24;
+
+	private ByteBuffer buffer;
+	private Thread writer;
+	private volatile IOException error;
+	private volatile long saved;
+	private long copyNanos;
+
+	/**
+	 * Returns whether or not a checkpoint is still being written
+	 * @return whether or not the writer is busy
+	 */
+	public boolean isBusy()
+	{
+		return writer != null && writer.isAlive();
+	}
+
+	/**
+	 * Returns the number of checkpoints written completely
+	 * @return the number of checkpoints saved
+	 */
+	public long getSaved()
+	{
+		return saved;
+	}
+
+	/**
+	 * Returns how long the simulation thread spent copying its state for the last checkpoint
+	 * @return the time in nanoseconds
+	 */
+	public long getCopyNanos()
+	{
+		return copyNanos;
+	}
+
+	/**
+	 * Returns the error from the last checkpoint that failed to be written, if any
+	 * @return the error, or null if the last checkpoint was written
+	 */
+	public IOException getError()
+	{
+		return error;
+	}
+
+	/**
+	 * Copies the state of the simulation and starts writing it to the given
+	 * file in the background. This must be called between ticks
+	 * @param simulation the simulation to save
+	 * @param file the checkpoint file, which is replaced once the new checkpoint is complete
+	 * @return whether the checkpoint was started (false if the previous one is still being written)
+	 */
+	public boolean save(Simulation simulation, File file)
+	{
+		if (isBusy())
+			return false;
+		long start = System.nanoTime();
+		int size = HEADER_SIZE + simulation.getStateBytes();
+		if (buffer == null || buffer.capacity() < size)
+			buffer = ByteBuffer.allocateDirect(size + size / 4);
+		buffer.clear();
+		buffer.position(HEADER_SIZE);
+		simulation.writeState(buffer);
+		buffer.flip();
+		copyNanos = System.nanoTime() - start;
+
+		ByteBuffer state = buffer;
+		long copied = copyNanos;
+		writer = new Thread(() -> record(state, file, copied), "checkpoint-writer");
+		writer.setDaemon(true);
+		writer.start();
+		return true;
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any, to finish
+	 */
+	public void await()
+	{
+		if (writer == null)
+			return;
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Writes a copied state, reporting the write as a flight recorder event
+	 * @param state the header and state, ready to be written
+	 * @param file the checkpoint file
+	 * @param copied how long the state took to copy, in nanoseconds
+	 */
+	private void record(ByteBuffer state, File file, long copied)
+	{
+		SimulationEvents.Checkpoint event = new SimulationEvents.Checkpoint();
+		event.begin();
+		write(state, file);
+		if (event.shouldCommit())
+		{
+			event.file = file.getPath();
+			event.bytes = state.limit();
+			event.copyNanos = copied;
+			event.succeeded = error == null;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Fills in the header of a copied state and writes it to a temporary
+	 * file, which then replaces the checkpoint file
+	 * @param state the header and state, ready to be written
+	 * @param file the checkpoint file
+	 */
+	private void write(ByteBuffer state, File file)
+	{
+		CRC32 crc = new CRC32();
+		ByteBuffer body = state.duplicate();
+		body.position(HEADER_SIZE);
+		crc.update(body);
+		state.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, state.limit() - HEADER_SIZE).putLong(16, crc.getValue());
+
+		File temporary = new File(file.getPath() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (state.hasRemaining())
+				channel.write(state);
+			channel.force(true);
+		}
+		catch (IOException e)
+		{
+			error = e;
+			return;
+		}
+		try
+		{
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			error = null;
+			saved++;
+		}
+		catch (IOException e)
+		{
+			error = e;
+		}
+	}
+
+	/**
+	 * Reads a checkpoint file and checks that it is complete and undamaged
+	 * @param file the checkpoint file
+	 * @return the state, positioned at its start
+	 * @throws IOException if the file cannot be read, or is not a valid checkpoint
+	 */
+	public static ByteBuffer read(File file) throws IOException
+	{
+		ByteBuffer state;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a checkpoint");
+			state = ByteBuffer.allocate((int)channel.size());
+			while (state.hasRemaining())
+				if (channel.read(state) < 0)
+					throw new IOException(file + " is truncated");
+		}
+		state.flip();
+		if (state.getInt() != MAGIC)
+			throw new IOException(file + " is not a checkpoint");
+		int version = state.getInt();
+		if (version != VERSION)
+			throw new IOException(file + " is a version " + version + " checkpoint; only version " + VERSION + " can be read");
+		long length = state.getLong(), expected = state.getLong();
+		if (length != state.remaining())
+			throw new IOException(file + " is truncated");
+		CRC32 crc = new CRC32();
+		crc.update(state.duplicate());
+		if (crc.getValue() != expected)
+			throw new IOException(file + " is damaged (checksum mismatch)");
+		return state;
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * ContactReader.java
+ *
+ * Reads back the contacts written by ContactRecorder, one at a
+ * time, decompressing a block whenever the previous one runs out.
+ * Contacts come back in the order of the blocks in the file, so
+ * they are in order of tick within a block but not necessarily
+ * across blocks written by different threads.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+public class ContactReader implements AutoCloseable
+{
+	private final DataInputStream in;
+	private final Inflater inflater;
+	private final int people;
+	private byte[] compressed;
+	private ByteBuffer encoded;
+	private int replica, remaining, first, second;
+	private long tick;
+	private boolean infection;
+
+	/**
+	 * Opens a contact file
+	 * @param file the file to read
+	 * @throws IOException if the file cannot be read or is not a contact file
+	 */
+	public ContactReader(File file) throws IOException
+	{
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try
+		{
+			if (in.readInt() != ContactRecorder.MAGIC || in.readInt() != ContactRecorder.VERSION)
+				throw new IOException(file + " is not a contact file");
+			people = in.readInt();
+		}
+		catch (IOException e)
+		{
+			in.close();
+			throw e instanceof EOFException ? new IOException(file + " is not a contact file") : e;
+		}
+		inflater = new Inflater();
+		compressed = new byte[0];
+		encoded = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * Returns the number of people in the simulation that was recorded
+	 * @return the number of people
+	 */
+	public int getPeople()
+	{
+		return people;
+	}
+
+	/**
+	 * Moves to the next contact in the file
+	 * @return whether there was another contact (false at the end of the file)
+	 * @throws IOException if the file cannot be read or is damaged
+	 */
+	public boolean next() throws IOException
+	{
+		while (remaining == 0)
+			if (!readBlock())
+				return false;
+		remaining--;
+		tick += TrajectoryWriter.getVarint(encoded);
+		first = (int)TrajectoryWriter.getVarint(encoded);
+		long packed = TrajectoryWriter.getVarint(encoded);
+		second = first + (int)TrajectoryWriter.unzigzag(packed >>> 1);
+		infection = (packed & 1) != 0;
+		return true;
+	}
+
+	/**
+	 * Returns the replica that the current contact happened in
+	 * @return the replica number
+	 */
+	public int getReplica()
+	{
+		return replica;
+	}
+
+	/**
+	 * Returns the tick that the current contact happened in
+	 * @return the tick
+	 */
+	public long getTick()
+	{
+		return tick;
+	}
+
+	/**
+	 * Returns the id of the first person in the current contact (the
+	 * infector, if the virus passed)
+	 * @return the id
+	 */
+	public int getFirst()
+	{
+		return first;
+	}
+
+	/**
+	 * Returns the id of the second person in the current contact
+	 * @return the id
+	 */
+	public int getSecond()
+	{
+		return second;
+	}
+
+	/**
+	 * Returns whether the first person infected the second in the current contact
+	 * @return whether the virus passed
+	 */
+	public boolean isInfection()
+	{
+		return infection;
+	}
+
+	/**
+	 * Closes the file
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		inflater.end();
+		in.close();
+	}
+
+	/**
+	 * Reads and decompresses the next block
+	 * @return whether there was another block
+	 * @throws IOException if the file cannot be read or the block is damaged
+	 */
+	private boolean readBlock() throws IOException
+	{
+		try
+		{
+			replica = in.readInt();
+		}
+		catch (EOFException e)
+		{
+			return false;
+		}
+		remaining = in.readInt();
+		int encodedLength = in.readInt(), compressedLength = in.readInt();
+		if (compressed.length < compressedLength)
+			compressed = new byte[compressedLength];
+		if (encoded.capacity() < encodedLength)
+			encoded = ByteBuffer.allocate(encodedLength);
+		in.readFully(compressed, 0, compressedLength);
+		inflater.reset();
+		inflater.setInput(compressed, 0, compressedLength);
+		encoded.clear().limit(encodedLength);
+		try
+		{
+			while (encoded.hasRemaining() && inflater.inflate(encoded) > 0)
+				;
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("damaged block of contacts", e);
+		}
+		if (encoded.hasRemaining())
+			throw new IOException("damaged block of contacts");
+		encoded.flip();
+		tick = 0;
+		return true;
+	}
+}
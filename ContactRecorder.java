@@ -0,0 +1,410 @@
+/**
+ * ContactRecorder.java
+ *
+ * Records every contact between two people (and whether the
+ * virus passed between them) to a compressed binary edge list,
+ * so that contact graphs and chains of transmission can be built
+ * offline. Recording a contact only stores four numbers in the
+ * recording thread's own block of primitive arrays, so threads
+ * never contend with each other. A full block goes on a queue
+ * and is swapped for an empty one from a fixed pool; a
+ * background thread encodes the full blocks, compresses them,
+ * writes them out, and hands them back to the pool. If the
+ * writer falls behind, recording waits for a free block rather
+ * than losing contacts.
+ *
+ * The file starts with a header (int magic "VSCE", int version,
+ * int people) followed by blocks, each holding contacts from one
+ * thread in the order that they happened:
+ *   int replica, int contacts, int encoded length,
+ *   int compressed length, then the compressed bytes
+ * The encoded bytes are, for each contact, varints of the ticks
+ * since the previous contact in the block (the first one is the
+ * tick itself), the first person's id, and the zig-zag encoded
+ * difference between the two ids shifted up by one with the
+ * lowest bit set if the first person infected the second. When
+ * the virus passed, the first person is always the infector.
+ * Blocks from different threads can interleave, so contacts are
+ * only in order within a block.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+public class ContactRecorder
+{
+	/** The first int of every file ("VSCE") */
+	public static final int MAGIC = 0x56534345;
+
+	/** The version of the layout written */
+	public static final int VERSION = 1;
+
+	/** The size of the header in bytes */
+	public static final int HEADER_SIZE = 12;
+
+	/** The size of the header of each block in bytes */
+	public static final int BLOCK_HEADER_SIZE = 16;
+
+	/** The default number of contacts held by each block */
+	public static final int BLOCK_CONTACTS = 1 << 16;
+
+	/**
+	 * One thread's buffer of contacts, which the thread appends to
+	 * without any locking
+	 */
+	public class Buffer
+	{
+		private long[] ticks;
+		private int[] first, second;
+		private boolean[] infected;
+		private int size, replica;
+
+		/**
+		 * Instantiates a Buffer object
+		 * @param capacity the number of contacts that it holds
+		 */
+		private Buffer(int capacity)
+		{
+			ticks = new long[capacity];
+			first = new int[capacity];
+			second = new int[capacity];
+			infected = new boolean[capacity];
+		}
+
+		/**
+		 * Records one contact, handing the buffer to the writer when it is full
+		 * @param tick the tick that the contact happened in
+		 * @param first the id of the first person (the infector, if the virus passed)
+		 * @param second the id of the second person
+		 * @param infected whether the first person infected the second
+		 */
+		public void add(long tick, int first, int second, boolean infected)
+		{
+			if (size == ticks.length)
+				swap(this);
+			ticks[size] = tick;
+			this.first[size] = first;
+			this.second[size] = second;
+			this.infected[size++] = infected;
+		}
+
+		/**
+		 * Records the contact reported by Person.checkCollision(), if any
+		 * @param tick the tick that the contact happened in
+		 * @param p the person that checked the collision
+		 * @param other the person that they were checked against
+		 * @param contact what checkCollision() returned
+		 */
+		public void add(long tick, Person p, Person other, int contact)
+		{
+			if (contact == Person.INFECTED)
+				add(tick, other.getId(), p.getId(), true);
+			else if (contact != Person.NO_CONTACT)
+				add(tick, p.getId(), other.getId(), contact == Person.INFECTED_OTHER);
+		}
+	}
+
+	/** Put on the queue to tell the writer to finish */
+	private final Buffer stop;
+
+	private final ArrayBlockingQueue<Buffer> free, pending;
+	private final ThreadLocal<Buffer> buffers;
+	private final ArrayList<Buffer> inUse;
+	private final FileChannel channel;
+	private final Thread writer;
+	private final Deflater deflater;
+	private ByteBuffer encoded, compressed;
+	private volatile int replica;
+	private final AtomicLong recorded;
+	private volatile long written;
+	private volatile IOException error;
+	private boolean closed;
+
+	/**
+	 * Creates (or replaces) a contact file and starts the writer thread
+	 * @param file the file to write
+	 * @param people the number of people in the simulation
+	 * @param blockContacts the number of contacts held by each block
+	 * @param blocks the number of blocks in the pool (at least one more than the recording threads)
+	 * @throws IOException if the file cannot be created
+	 */
+	public ContactRecorder(File file, int people, int blockContacts, int blocks) throws IOException
+	{
+		blockContacts = Math.max(1, blockContacts);
+		blocks = Math.max(2, blocks);
+		free = new ArrayBlockingQueue<Buffer>(blocks);
+		pending = new ArrayBlockingQueue<Buffer>(blocks + 1);
+		for (int i = 0; i < blocks; i++)
+			free.add(new Buffer(blockContacts));
+		stop = new Buffer(0);
+		buffers = new ThreadLocal<Buffer>();
+		inUse = new ArrayList<Buffer>();
+		recorded = new AtomicLong();
+		replica = -1;
+		deflater = new Deflater(Deflater.BEST_SPEED);
+		encoded = ByteBuffer.allocate(blockContacts * 24);
+		compressed = ByteBuffer.allocateDirect(encoded.capacity() + encoded.capacity() / 8 + 64);
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(people);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header);
+		writer = new Thread(this::write, "contact-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Creates (or replaces) a contact file with the default block size and
+	 * enough blocks for every processor to record at once
+	 * @param file the file to write
+	 * @param people the number of people in the simulation
+	 * @throws IOException if the file cannot be created
+	 */
+	public ContactRecorder(File file, int people) throws IOException
+	{
+		this(file, people, BLOCK_CONTACTS, Runtime.getRuntime().availableProcessors() + 2);
+	}
+
+	/**
+	 * Returns the calling thread's buffer, which should be looked up once
+	 * and reused for every contact that the thread records in a tick
+	 * @return the buffer
+	 */
+	public Buffer buffer()
+	{
+		Buffer buffer = buffers.get();
+		if (buffer == null)
+		{
+			buffer = take();
+			buffers.set(buffer);
+			synchronized (inUse)
+			{
+				inUse.add(buffer);
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Starts a new replica: the contacts recorded so far are flushed, and
+	 * later contacts are marked with the next replica number. This must be
+	 * called between ticks, while no thread is recording
+	 * @return the number of the new replica
+	 */
+	public int beginReplica()
+	{
+		flush();
+		return ++replica;
+	}
+
+	/**
+	 * Returns the number of the replica being recorded
+	 * @return the replica number, or -1 if none has been started
+	 */
+	public int getReplica()
+	{
+		return replica;
+	}
+
+	/**
+	 * Returns the number of contacts handed to the writer so far
+	 * @return the number of contacts recorded
+	 */
+	public long getRecorded()
+	{
+		return recorded.get();
+	}
+
+	/**
+	 * Returns the number of contacts written to disk so far
+	 * @return the number of contacts written
+	 */
+	public long getWritten()
+	{
+		return written;
+	}
+
+	/**
+	 * Returns the first error that happened while writing, if any (contacts
+	 * are not written after an error)
+	 * @return the error, or null if there was none
+	 */
+	public IOException getError()
+	{
+		return error;
+	}
+
+	/**
+	 * Hands every thread's partly filled buffer to the writer. This must be
+	 * called between ticks, while no thread is recording
+	 */
+	public void flush()
+	{
+		synchronized (inUse)
+		{
+			for (Buffer buffer : inUse)
+				if (buffer.size > 0)
+					swap(buffer);
+		}
+	}
+
+	/**
+	 * Writes out every contact recorded, then stops the writer thread and
+	 * closes the file. This must be called while no thread is recording
+	 * @throws IOException if the contacts could not all be written
+	 */
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+		closed = true;
+		flush();
+		pending.add(stop);
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		deflater.end();
+		channel.close();
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Queues a buffer's contacts to be written and empties it, by swapping
+	 * its arrays with those of a free buffer
+	 * @param buffer the buffer to hand over
+	 */
+	private void swap(Buffer buffer)
+	{
+		Buffer full = take();
+		long[] ticks = full.ticks;
+		int[] first = full.first, second = full.second;
+		boolean[] infected = full.infected;
+		full.ticks = buffer.ticks;
+		full.first = buffer.first;
+		full.second = buffer.second;
+		full.infected = buffer.infected;
+		full.size = buffer.size;
+		full.replica = replica;
+		buffer.ticks = ticks;
+		buffer.first = first;
+		buffer.second = second;
+		buffer.infected = infected;
+		buffer.size = 0;
+		recorded.addAndGet(full.size);
+		pending.add(full);
+	}
+
+	/**
+	 * Takes a free buffer from the pool, waiting for the writer if there is none
+	 * @return the buffer
+	 */
+	private Buffer take()
+	{
+		while (true)
+		{
+			try
+			{
+				return free.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Takes buffers off the queue and writes them until told to stop
+	 */
+	private void write()
+	{
+		while (true)
+		{
+			Buffer buffer;
+			try
+			{
+				buffer = pending.take();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			if (buffer == stop)
+				return;
+			try
+			{
+				if (error == null)
+					write(buffer);
+			}
+			catch (IOException e)
+			{
+				error = e;
+			}
+			buffer.size = 0;
+			free.add(buffer);
+		}
+	}
+
+	/**
+	 * Encodes, compresses, and writes one block
+	 * @param buffer the block to write
+	 * @throws IOException if the block cannot be written
+	 */
+	private void write(Buffer buffer) throws IOException
+	{
+		encoded.clear();
+		long previous = 0;
+		for (int i = 0; i < buffer.size; i++)
+		{
+			TrajectoryWriter.putVarint(encoded, buffer.ticks[i] - previous);
+			previous = buffer.ticks[i];
+			TrajectoryWriter.putVarint(encoded, buffer.first[i]);
+			TrajectoryWriter.putVarint(encoded, TrajectoryWriter.zigzag(buffer.second[i] - buffer.first[i]) << 1
+				| (buffer.infected[i] ? 1 : 0));
+		}
+		encoded.flip();
+
+		compressed.clear();
+		compressed.position(BLOCK_HEADER_SIZE);
+		deflater.reset();
+		deflater.setInput(encoded);
+		deflater.finish();
+		while (!deflater.finished())
+		{
+			if (!compressed.hasRemaining())
+			{
+				ByteBuffer larger = ByteBuffer.allocateDirect(compressed.capacity() * 2);
+				compressed.flip();
+				larger.put(compressed);
+				compressed = larger;
+			}
+			deflater.deflate(compressed);
+		}
+		compressed.flip();
+		compressed.putInt(0, buffer.replica).putInt(4, buffer.size).putInt(8, encoded.limit())
+			.putInt(12, compressed.limit() - BLOCK_HEADER_SIZE);
+		while (compressed.hasRemaining())
+			channel.write(compressed);
+		written += buffer.size;
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * DensityRenderer.java
+ *
+ * Draws huge populations as a density map instead of one ball
+ * per person. The canvas is divided into small square tiles,
+ * and the people in each tile are counted by viral state; the
+ * tile is then colored with a blend of the state colors
+ * (weighted by the counts) that gets more opaque as the tile
+ * gets more crowded. Counting is split among threads, each
+ * with its own counts, and the counts are combined and drawn
+ * in parallel by rows of tiles, so the cost of coloring the
+ * canvas depends on its size rather than on the population.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class DensityRenderer
+{
+	/** The colors of each viral state (uninfected, infected, cured, dead) as RGB */
+	private static final int[] COLORS = {0x000000, 0xFF0000, 0x00FF00, 0xF0D732};
+
+	/** The number of viral states counted in each tile */
+	private static final int STATES = COLORS.length;
+
+	private int tileSize, saturation;
+	private int columns, rows;
+	private int[][] counts;
+	private double logSaturation;
+
+	/**
+	 * Instantiates a DensityRenderer object
+	 * @param tileSize the width and height of each tile in pixels
+	 * @param saturation the number of people in a tile at which it is fully opaque
+	 */
+	public DensityRenderer(int tileSize, int saturation)
+	{
+		this.tileSize = Math.max(1, tileSize);
+		this.saturation = Math.max(1, saturation);
+		logSaturation = Math.log1p(this.saturation);
+		counts = new int[Math.max(1, Runtime.getRuntime().availableProcessors())][0];
+	}
+
+	/**
+	 * Draws some of the people in the given snapshot onto the canvas as a density map
+	 * @param snapshot the snapshot to draw
+	 * @param interpolation how far between the previous and the current tick to draw people (0 to 1)
+	 * @param from the index of the first person to draw (inclusive)
+	 * @param to the index of the last person to draw (exclusive)
+	 */
+	public void draw(Snapshot snapshot, double interpolation, int from, int to)
+	{
+		int width = StdDraw.getCanvasWidth(), height = StdDraw.getCanvasHeight();
+		columns = (width + tileSize - 1) / tileSize;
+		rows = (height + tileSize - 1) / tileSize;
+		int cells = columns * rows * STATES;
+		if (counts[0].length != cells)
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = new int[cells];
+
+		int chunks = counts.length, chunkSize = (to - from + chunks - 1) / chunks;
+		IntStream.range(0, chunks).parallel().forEach(chunk ->
+			count(snapshot, interpolation, counts[chunk], from + chunk * chunkSize, Math.min(to, from + (chunk + 1) * chunkSize)));
+
+		int[] pixels = StdDraw.getPixels();
+		IntStream.range(0, rows).parallel().forEach(row -> drawRow(pixels, width, height, row));
+	}
+
+	/**
+	 * Counts the people of each viral state in every tile
+	 * @param snapshot the snapshot being drawn
+	 * @param interpolation how far between the previous and the current tick to draw people (0 to 1)
+	 * @param local the counts to fill in (for this thread only)
+	 * @param from the index of the first person to count (inclusive)
+	 * @param to the index of the last person to count (exclusive)
+	 */
+	private void count(Snapshot snapshot, double interpolation, int[] local, int from, int to)
+	{
+		Arrays.fill(local, 0);
+		for (int i = from; i < to; i++)
+		{
+			int column = (int)Math.floor(StdDraw.toScreenX(snapshot.getX(i, interpolation)) / tileSize),
+				row = (int)Math.floor(StdDraw.toScreenY(snapshot.getY(i, interpolation)) / tileSize);
+			if (column >= 0 && column < columns && row >= 0 && row < rows)
+				local[(row * columns + column) * STATES + snapshot.getViralState(i)]++;
+		}
+	}
+
+	/**
+	 * Combines the counts of every thread for one row of tiles and colors the tiles
+	 * @param pixels the pixels of the canvas
+	 * @param width the width of the canvas
+	 * @param height the height of the canvas
+	 * @param row the row of tiles to draw
+	 */
+	private void drawRow(int[] pixels, int width, int height, int row)
+	{
+		for (int column = 0; column < columns; column++)
+		{
+			int cell = (row * columns + column) * STATES, total = 0, r = 0, g = 0, b = 0;
+			for (int state = 0; state < STATES; state++)
+			{
+				int n = 0;
+				for (int[] local : counts)
+					n += local[cell + state];
+				total += n;
+				r += n * (COLORS[state] >> 16 & 255);
+				g += n * (COLORS[state] >> 8 & 255);
+				b += n * (COLORS[state] & 255);
+			}
+			if (total == 0)
+				continue;
+			int alpha = (int)Math.round(255 * Math.min(1.0, Math.log1p(total) / logSaturation));
+			r /= total;
+			g /= total;
+			b /= total;
+			for (int y = row * tileSize; y < Math.min(height, (row + 1) * tileSize); y++)
+				for (int x = column * tileSize; x < Math.min(width, (column + 1) * tileSize); x++)
+					pixels[y * width + x] = blend(r, g, b, alpha, pixels[y * width + x]);
+		}
+	}
+
+	/**
+	 * Blends a color over an opaque canvas pixel
+	 * @param r the red component of the color
+	 * @param g the green component of the color
+	 * @param b the blue component of the color
+	 * @param alpha the opacity of the color (0 to 255)
+	 * @param dst the canvas pixel (ARGB)
+	 * @return the blended pixel
+	 */
+	private static int blend(int r, int g, int b, int alpha, int dst)
+	{
+		int inverse = 255 - alpha;
+		r = (r * alpha + ((dst >> 16) & 255) * inverse) / 255;
+		g = (g * alpha + ((dst >> 8) & 255) * inverse) / 255;
+		b = (b * alpha + (dst & 255) * inverse) / 255;
+		return 0xFF000000 | (r << 16) | (g << 8) | b;
+	}
+}
@@ -0,0 +1,369 @@
+/**
+ * DifferentialCheck.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java DifferentialCheck"
+ * (optionally followed by the number of people, the number of
+ * rooms, the number of ticks compared exactly, the number of runs
+ * per engine compared statistically, and the engine to check, eg.
+ * "java DifferentialCheck 500 3 1500 30 GRID").
+ *
+ * Checks an engine against the original pair loop, which tests
+ * every person against everyone after them, so that a faster way
+ * of finding who is touching can be adopted with confidence.
+ *
+ * The exact check runs both engines from the same seed in lock
+ * step. After every tick, the number of people in each viral
+ * state and the whole state of the simulation (every position,
+ * velocity, and viral state, the random number generator, the
+ * history, and the infection tree) must be identical, and
+ * afterwards the contacts of every tick (recorded by each engine
+ * with a ContactRecorder) must be the same set. The first tick
+ * that differs is reported. An engine that is not deterministic
+ * can skip this check by asking for 0 ticks.
+ *
+ * The statistical check runs each engine from its own seeds until
+ * the virus has run its course, and compares the distributions of
+ * the outcomes (the fractions who died and were cured, the peak
+ * fraction infected, and how many ticks it took) with a
+ * two-sample Kolmogorov-Smirnov test, failing if any of them
+ * differ at the SIGNIFICANCE level.
+ *
+ * The program exits with status 1 if either check fails.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class DifferentialCheck
+{
+	/** The default number of people */
+	private static final int PEOPLE = 500;
+
+	/** The default number of rooms */
+	private static final int ROOMS = 3;
+
+	/** The default number of ticks compared exactly */
+	private static final int TICKS = 1500;
+
+	/** The default number of runs of each engine compared statistically */
+	private static final int RUNS = 30;
+
+	/** The most ticks that a run compared statistically may take */
+	private static final int MAX_TICKS = 20000;
+
+	/** The p-value below which two distributions of an outcome are taken to differ */
+	private static final double SIGNIFICANCE = 0.01;
+
+	/** The seed of the exact check, and the first seed of the statistical check */
+	private static final long SEED = 1;
+
+	/** The most people whose contacts can be compared (ids must fit in 20 bits of a key) */
+	private static final int MAX_PEOPLE = 1 << 20;
+
+	/** The rates of every run */
+	private static final double INFECT_RATE = 0.6, SHELTER_IN_PLACE_RATE = 0.2, DEATH_RATE = 0.3;
+
+	/** The outcomes compared statistically */
+	private static final String[] OUTCOMES = {"dead", "cured", "peak infected", "ticks"};
+
+	/**
+	 * Runs the exact and statistical checks
+	 * @param args the number of people, rooms, ticks, and runs, and the engine to check (all optional)
+	 */
+	public static void main(String[] args)
+	{
+		int people = args.length > 0 ? Integer.parseInt(args[0]) : PEOPLE;
+		int rooms = args.length > 1 ? Integer.parseInt(args[1]) : ROOMS;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : TICKS;
+		int runs = args.length > 3 ? Integer.parseInt(args[3]) : RUNS;
+		Simulation.Engine engine = args.length > 4 ? Simulation.Engine.valueOf(args[4]) : Simulation.Engine.GRID;
+
+		boolean passed = true;
+		try
+		{
+			if (ticks > 0 && people > MAX_PEOPLE)
+				System.err.println("Contacts can only be compared for up to " + MAX_PEOPLE + " people");
+			else if (ticks > 0)
+				passed &= compareExactly(people, rooms, ticks, engine);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Cannot record contacts: " + e.getMessage());
+			passed = false;
+		}
+		if (runs > 0)
+			passed &= compareStatistically(people, rooms, runs, engine);
+		if (!passed)
+		{
+			System.err.println(engine + " does not match " + Simulation.Engine.PAIR_LOOP);
+			System.exit(1);
+		}
+		System.out.println(engine + " matches " + Simulation.Engine.PAIR_LOOP);
+	}
+
+	/**
+	 * Creates a headless simulation with the given engine
+	 * @param people the number of people
+	 * @param rooms the number of rooms
+	 * @param seed the seed
+	 * @param engine the engine
+	 * @return the simulation
+	 */
+	private static Simulation create(int people, int rooms, long seed, Simulation.Engine engine)
+	{
+		Simulation simulation = new Simulation(people, INFECT_RATE, SHELTER_IN_PLACE_RATE, DEATH_RATE, rooms, seed);
+		simulation.setEngine(engine);
+		return simulation;
+	}
+
+	/**
+	 * Runs the pair loop and an engine from the same seed, comparing counts and
+	 * state after every tick and the contacts of every tick afterwards
+	 * @param people the number of people
+	 * @param rooms the number of rooms
+	 * @param ticks the number of ticks to compare
+	 * @param engine the engine to check
+	 * @return whether or not the engine matched exactly
+	 * @throws IOException if the contacts cannot be recorded or read back
+	 */
+	private static boolean compareExactly(int people, int rooms, int ticks, Simulation.Engine engine) throws IOException
+	{
+		Simulation reference = create(people, rooms, SEED, Simulation.Engine.PAIR_LOOP);
+		Simulation checked = create(people, rooms, SEED, engine);
+		File referenceFile = File.createTempFile("differential-reference", ".vsce");
+		File checkedFile = File.createTempFile("differential-checked", ".vsce");
+		ContactRecorder referenceContacts = new ContactRecorder(referenceFile, people);
+		ContactRecorder checkedContacts = new ContactRecorder(checkedFile, people);
+		reference.setContactRecorder(referenceContacts);
+		checked.setContactRecorder(checkedContacts);
+
+		long countsDiffer = -1, stateDiffers = -1, contactsDiffer;
+		try
+		{
+			for (long tick = 0; tick < ticks && stateDiffers < 0; tick++)
+			{
+				reference.tick();
+				checked.tick();
+				for (int state = 0; state < 4 && countsDiffer < 0; state++)
+					if (reference.getCount(state) != checked.getCount(state))
+						countsDiffer = tick;
+				if (!getState(reference).equals(getState(checked)))
+					stateDiffers = tick;
+			}
+			referenceContacts.close();
+			checkedContacts.close();
+			contactsDiffer = firstDifference(readContacts(referenceFile), readContacts(checkedFile));
+		}
+		finally
+		{
+			referenceContacts.close();
+			checkedContacts.close();
+			referenceFile.delete();
+			checkedFile.delete();
+		}
+
+		System.out.printf("Exact check over %d ticks of %d people (seed %d):%n", ticks, people, SEED);
+		report("counts", countsDiffer);
+		report("state", stateDiffers);
+		report("contacts", contactsDiffer);
+		return countsDiffer < 0 && stateDiffers < 0 && contactsDiffer < 0;
+	}
+
+	/**
+	 * Prints whether a comparison matched, or the first tick where it did not
+	 * @param what what was compared
+	 * @param firstDifference the first tick that differed, or -1 if none did
+	 */
+	private static void report(String what, long firstDifference)
+	{
+		if (firstDifference < 0)
+			System.out.printf("  %-10s identical%n", what);
+		else
+			System.out.printf("  %-10s differ from tick %d%n", what, firstDifference);
+	}
+
+	/**
+	 * Returns the whole state of a simulation between ticks
+	 * @param simulation the simulation
+	 * @return the state, as written by writeState()
+	 */
+	private static ByteBuffer getState(Simulation simulation)
+	{
+		ByteBuffer state = ByteBuffer.allocate(simulation.getStateBytes());
+		simulation.writeState(state);
+		state.flip();
+		return state;
+	}
+
+	/**
+	 * Reads every contact in a file as a sorted list of keys, so that the
+	 * contacts of each tick can be compared as a set
+	 * @param file the contact file
+	 * @return the keys (tick, then first id, then second id, then whether the virus passed), sorted
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long[] readContacts(File file) throws IOException
+	{
+		long[] keys = new long[1024];
+		int count = 0;
+		try (ContactReader reader = new ContactReader(file))
+		{
+			while (reader.next())
+			{
+				if (count == keys.length)
+					keys = Arrays.copyOf(keys, count * 2);
+				keys[count++] = reader.getTick() << 41 | (long)reader.getFirst() << 21 | (long)reader.getSecond() << 1
+					| (reader.isInfection() ? 1 : 0);
+			}
+		}
+		keys = Arrays.copyOf(keys, count);
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	/**
+	 * Finds the first tick whose contacts differ between two sorted lists of keys
+	 * @param reference the keys of the pair loop
+	 * @param checked the keys of the engine being checked
+	 * @return the first tick that differs, or -1 if every tick has the same contacts
+	 */
+	private static long firstDifference(long[] reference, long[] checked)
+	{
+		for (int i = 0; i < Math.max(reference.length, checked.length); i++)
+		{
+			if (i >= reference.length)
+				return checked[i] >>> 41;
+			if (i >= checked.length)
+				return reference[i] >>> 41;
+			if (reference[i] != checked[i])
+				return Math.min(reference[i], checked[i]) >>> 41;
+		}
+		return -1;
+	}
+
+	/**
+	 * Runs each engine from its own seeds and compares the distributions of
+	 * the outcomes with a Kolmogorov-Smirnov test
+	 * @param people the number of people
+	 * @param rooms the number of rooms
+	 * @param runs the number of runs of each engine
+	 * @param engine the engine to check
+	 * @return whether or not no outcome differed significantly
+	 */
+	private static boolean compareStatistically(int people, int rooms, int runs, Simulation.Engine engine)
+	{
+		// different seeds, so that the test compares distributions rather than repeating the exact check
+		double[][] reference = runOutcomes(people, rooms, runs, SEED, Simulation.Engine.PAIR_LOOP);
+		double[][] checked = runOutcomes(people, rooms, runs, SEED + runs, engine);
+
+		System.out.printf("Statistical check over %d runs of each engine with %d people:%n", runs, people);
+		System.out.printf("  %-14s %10s %10s %8s %8s%n", "outcome", "reference", "checked", "D", "p");
+		boolean passed = true;
+		for (int o = 0; o < OUTCOMES.length; o++)
+		{
+			double d = kolmogorovSmirnov(reference[o], checked[o]);
+			double p = kolmogorovSmirnovP(d, runs, runs);
+			boolean differs = p < SIGNIFICANCE;
+			passed &= !differs;
+			System.out.printf("  %-14s %10.4f %10.4f %8.3f %8.4f%s%n", OUTCOMES[o], mean(reference[o]), mean(checked[o]), d, p,
+				differs ? "  DIFFERS" : "");
+		}
+		return passed;
+	}
+
+	/**
+	 * Runs an engine from consecutive seeds until the virus has run its course
+	 * @param people the number of people
+	 * @param rooms the number of rooms
+	 * @param runs the number of runs
+	 * @param firstSeed the seed of the first run
+	 * @param engine the engine
+	 * @return the outcomes of each run, indexed by outcome and then run
+	 */
+	private static double[][] runOutcomes(int people, int rooms, int runs, long firstSeed, Simulation.Engine engine)
+	{
+		double[][] outcomes = new double[OUTCOMES.length][runs];
+		for (int run = 0; run < runs; run++)
+		{
+			Simulation simulation = create(people, rooms, firstSeed + run, engine);
+			simulation.setTermination(0, MAX_TICKS);
+			simulation.run();
+			outcomes[0][run] = simulation.getCount(3) / (double)people;
+			outcomes[1][run] = simulation.getCount(2) / (double)people;
+			outcomes[2][run] = simulation.getPeakInfected() / (double)people;
+			outcomes[3][run] = simulation.getTickCount();
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Returns the largest difference between the empirical distribution functions of two samples
+	 * @param a the first sample
+	 * @param b the second sample
+	 * @return the Kolmogorov-Smirnov statistic D
+	 */
+	private static double kolmogorovSmirnov(double[] a, double[] b)
+	{
+		double[] x = a.clone(), y = b.clone();
+		Arrays.sort(x);
+		Arrays.sort(y);
+		int i = 0, j = 0;
+		double d = 0;
+		while (i < x.length && j < y.length)
+		{
+			// step past every copy of the smaller value in both samples, so that ties count together
+			double value = Math.min(x[i], y[j]);
+			while (i < x.length && x[i] == value)
+				i++;
+			while (j < y.length && y[j] == value)
+				j++;
+			d = Math.max(d, Math.abs(i / (double)x.length - j / (double)y.length));
+		}
+		return d;
+	}
+
+	/**
+	 * Returns the approximate probability of a Kolmogorov-Smirnov statistic at least
+	 * as large as the one given if both samples came from the same distribution
+	 * @param d the statistic
+	 * @param n the size of the first sample
+	 * @param m the size of the second sample
+	 * @return the p-value
+	 */
+	private static double kolmogorovSmirnovP(double d, int n, int m)
+	{
+		double root = Math.sqrt(n * m / (double)(n + m));
+		double lambda = (root + 0.12 + 0.11 / root) * d;
+		if (lambda < 0.2)
+			return 1.0;
+		double sum = 0, sign = 1;
+		for (int k = 1; k <= 100; k++)
+		{
+			double term = sign * Math.exp(-2 * k * k * lambda * lambda);
+			sum += term;
+			if (Math.abs(term) < 1e-12)
+				break;
+			sign = -sign;
+		}
+		return Math.max(0.0, Math.min(1.0, 2 * sum));
+	}
+
+	/**
+	 * Returns the average of a sample
+	 * @param values the sample
+	 * @return the mean
+	 */
+	private static double mean(double[] values)
+	{
+		double sum = 0;
+		for (double value : values)
+			sum += value;
+		return sum / values.length;
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * FrameRecorder.java
+ *
+ * Records the frames drawn on the canvas to disk without making
+ * the renderer wait for the encoding. Capturing a frame only
+ * copies the canvas's pixels into one of a fixed pool of
+ * reusable buffers and puts it on a bounded queue; background
+ * encoder threads take frames off the queue and write them out,
+ * then hand the buffers back to the pool. Frames can be written
+ * as numbered PNG files (frame-000000.png, ...) or appended to a
+ * single raw file (frames.raw), where each frame is its number,
+ * width, and height followed by its ARGB pixels, all as
+ * big-endian ints. When the encoders fall behind and the pool
+ * runs dry, the recorder either drops the frame (so that the
+ * simulation never slows down) or waits for a free buffer (so
+ * that no frame is lost). Once the recorder is stopped, frames
+ * are refused, so every frame it captured is also written.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+public class FrameRecorder
+{
+	/** The ways that frames can be written to disk */
+	public enum Format { PNG, RAW }
+
+	/**
+	 * A reusable buffer holding one captured frame
+	 */
+	private static class Frame
+	{
+		private BufferedImage image;
+		private int[] pixels;
+		private long number;
+	}
+
+	/** Put on the queue to tell an encoder to finish */
+	private static final Frame STOP = new Frame();
+
+	private final File directory;
+	private final Format format;
+	private final boolean dropWhenBehind;
+	private final ArrayBlockingQueue<Frame> free, pending;
+	private final Thread[] encoders;
+	private final AtomicLong written, dropped;
+	private FileChannel channel;
+	private ByteBuffer bytes;
+	private volatile long captured;
+	private volatile IOException error;
+	private boolean stopped;
+
+	/**
+	 * Instantiates a FrameRecorder object (which does not record until started)
+	 * @param directory the directory to write frames into (created if needed)
+	 * @param format how to write the frames
+	 * @param buffers the number of frames that can be waiting to be written at once
+	 * @param encoders the number of encoder threads (raw files always use one, to keep frames in order)
+	 * @param dropWhenBehind whether to drop frames (instead of waiting) when every buffer is in use
+	 */
+	public FrameRecorder(File directory, Format format, int buffers, int encoders, boolean dropWhenBehind)
+	{
+		this.directory = directory;
+		this.format = format;
+		this.dropWhenBehind = dropWhenBehind;
+		buffers = Math.max(1, buffers);
+		free = new ArrayBlockingQueue<Frame>(buffers);
+		pending = new ArrayBlockingQueue<Frame>(buffers + encoders + 1);
+		for (int i = 0; i < buffers; i++)
+			free.add(new Frame());
+		this.encoders = new Thread[format == Format.RAW ? 1 : Math.max(1, encoders)];
+		written = new AtomicLong();
+		dropped = new AtomicLong();
+	}
+
+	/**
+	 * Instantiates a FrameRecorder object that drops frames when behind, with
+	 * half of the available processors encoding
+	 * @param directory the directory to write frames into (created if needed)
+	 * @param format how to write the frames
+	 */
+	public FrameRecorder(File directory, Format format)
+	{
+		this(directory, format, 2 * encoderCount() + 2, encoderCount(), true);
+	}
+
+	/**
+	 * Returns the default number of encoder threads
+	 * @return half of the available processors, but at least one
+	 */
+	private static int encoderCount()
+	{
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	}
+
+	/**
+	 * Returns the directory that frames are written into
+	 * @return the directory
+	 */
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Returns the number of frames captured so far (not counting dropped frames)
+	 * @return the number of frames captured
+	 */
+	public long getCaptured()
+	{
+		return captured;
+	}
+
+	/**
+	 * Returns the number of frames written to disk so far
+	 * @return the number of frames written
+	 */
+	public long getWritten()
+	{
+		return written.get();
+	}
+
+	/**
+	 * Returns the number of frames dropped because the encoders fell behind
+	 * @return the number of frames dropped
+	 */
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+
+	/**
+	 * Returns the first error that happened while writing frames, if any
+	 * (frames are not written after an error)
+	 * @return the error, or null if there was none
+	 */
+	public IOException getError()
+	{
+		return error;
+	}
+
+	/**
+	 * Creates the directory (and raw file) and starts the encoder threads
+	 * @throws IOException if the directory or file cannot be created
+	 */
+	public void start() throws IOException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create " + directory);
+		if (format == Format.RAW)
+			channel = FileChannel.open(new File(directory, "frames.raw").toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		for (int i = 0; i < encoders.length; i++)
+		{
+			encoders[i] = new Thread(this::encode, "frame-encoder-" + i);
+			encoders[i].setDaemon(true);
+			encoders[i].start();
+		}
+	}
+
+	/**
+	 * Copies the canvas's current pixels and queues them to be written.
+	 * This must be called on the thread that draws, after a frame is finished.
+	 * It holds the recorder's lock throughout, so that stop() waits for a frame
+	 * being captured to be queued before telling the encoders to finish
+	 * @return whether the frame was captured (false if it was dropped, or the recorder was stopped)
+	 */
+	public synchronized boolean capture()
+	{
+		if (stopped)
+			return false;
+		Frame frame = free.poll();
+		if (frame == null)
+		{
+			if (dropWhenBehind || error != null)
+			{
+				dropped.incrementAndGet();
+				return false;
+			}
+			try
+			{
+				frame = free.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				dropped.incrementAndGet();
+				return false;
+			}
+		}
+		int width = StdDraw.getCanvasWidth(), height = StdDraw.getCanvasHeight();
+		if (frame.image == null || frame.image.getWidth() != width || frame.image.getHeight() != height)
+		{
+			frame.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			frame.pixels = ((DataBufferInt)frame.image.getRaster().getDataBuffer()).getData();
+		}
+		System.arraycopy(StdDraw.getPixels(), 0, frame.pixels, 0, width * height);
+		frame.number = captured++;
+		pending.add(frame);
+		return true;
+	}
+
+	/**
+	 * Writes out every frame still waiting, then stops the encoder threads
+	 * and closes the raw file. A frame that another thread is capturing is
+	 * queued (and written) first, and any frame captured afterwards is refused
+	 */
+	public void stop()
+	{
+		synchronized (this)
+		{
+			if (!stopped)
+				for (int i = 0; i < encoders.length; i++)
+					pending.add(STOP);
+			stopped = true;
+		}
+		try
+		{
+			for (Thread encoder : encoders)
+				if (encoder != null)
+					encoder.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		try
+		{
+			if (channel != null)
+				channel.close();
+		}
+		catch (IOException e)
+		{
+			if (error == null)
+				error = e;
+		}
+	}
+
+	/**
+	 * Takes frames off the queue and writes them until told to stop
+	 */
+	private void encode()
+	{
+		while (true)
+		{
+			Frame frame;
+			try
+			{
+				frame = pending.take();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			if (frame == STOP)
+				return;
+			try
+			{
+				if (error == null)
+					write(frame);
+			}
+			catch (IOException e)
+			{
+				error = e;
+			}
+			free.add(frame);
+		}
+	}
+
+	/**
+	 * Writes one frame to disk
+	 * @param frame the frame to write
+	 * @throws IOException if the frame cannot be written
+	 */
+	private void write(Frame frame) throws IOException
+	{
+		if (format == Format.PNG)
+			ImageIO.write(frame.image, "png", new File(directory, String.format("frame-%06d.png", frame.number)));
+		else
+		{
+			int size = 12 + 4 * frame.pixels.length;
+			if (bytes == null || bytes.capacity() < size)
+				bytes = ByteBuffer.allocateDirect(size);
+			bytes.clear();
+			bytes.putInt((int)frame.number).putInt(frame.image.getWidth()).putInt(frame.image.getHeight());
+			bytes.asIntBuffer().put(frame.pixels);
+			bytes.position(size);
+			bytes.flip();
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+		}
+		written.incrementAndGet();
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * FrameScheduler.java
+ *
+ * Paces the frames of the simulation to a target frame rate.
+ * Rather than sleeping for a fixed amount of time after every
+ * frame, the scheduler measures how long the computation and
+ * rendering of each frame took and only sleeps for whatever is
+ * left of the frame period. When frames take longer than the
+ * period, rendering is skipped (up to a limit) so the simulation
+ * can catch up. The achieved frame rate and tick rate are
+ * measured over one-second windows.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameScheduler
+{
+	/** The most frames in a row that can be skipped under overload */
+	private static final int MAX_SKIPPED_FRAMES = 5;
+
+	/** The length of the window that rates are measured over, in nanoseconds */
+	private static final long WINDOW_NANOS = 1000000000L;
+
+	private long periodNanos, nextDeadline, frameStart, computeEnd;
+	private long computeNanos, renderNanos;
+	private int skipped;
+	private long windowStart, windowFrames, windowTicks;
+	private double fps, tickRate;
+
+	/**
+	 * Instantiates a FrameScheduler object
+	 * @param framesPerSecond the target frame rate
+	 */
+	public FrameScheduler(int framesPerSecond)
+	{
+		setFrameRate(framesPerSecond);
+		nextDeadline = windowStart = System.nanoTime();
+	}
+
+	/**
+	 * Sets the target frame rate
+	 * @param framesPerSecond the new target frame rate
+	 */
+	public void setFrameRate(int framesPerSecond)
+	{
+		periodNanos = 1000000000L / Math.max(1, framesPerSecond);
+	}
+
+	/**
+	 * Marks the start of a frame
+	 * @return the time that the frame started, in nanoseconds
+	 */
+	public long beginFrame()
+	{
+		frameStart = System.nanoTime();
+		return frameStart;
+	}
+
+	/**
+	 * Marks the end of the computation (physics) part of the frame
+	 * @param ticks the number of ticks that were run during the frame
+	 */
+	public void endCompute(int ticks)
+	{
+		computeEnd = System.nanoTime();
+		computeNanos = computeEnd - frameStart;
+		windowTicks += ticks;
+	}
+
+	/**
+	 * Determines if the current frame should be rendered. A frame is
+	 * skipped when the schedule is already more than a frame period
+	 * behind, unless too many frames have been skipped in a row.
+	 * @return whether or not to render the current frame
+	 */
+	public boolean shouldRender()
+	{
+		boolean behind = computeEnd - nextDeadline > periodNanos;
+		if (behind && skipped < MAX_SKIPPED_FRAMES)
+		{
+			skipped++;
+			return false;
+		}
+		skipped = 0;
+		return true;
+	}
+
+	/**
+	 * Marks the end of the rendering part of the frame
+	 * @param rendered whether or not the frame was actually rendered
+	 */
+	public void endRender(boolean rendered)
+	{
+		renderNanos = rendered ? System.nanoTime() - computeEnd : 0;
+		if (rendered)
+			windowFrames++;
+	}
+
+	/**
+	 * Sleeps for the remainder of the frame period, if any is left,
+	 * and updates the measured rates
+	 * @param sleep whether or not to sleep (false when running at max speed)
+	 */
+	public void sync(boolean sleep)
+	{
+		nextDeadline += periodNanos;
+		long now = System.nanoTime();
+		// resynchronize instead of trying to make up for a long stall
+		if (!sleep || now - nextDeadline > MAX_SKIPPED_FRAMES * periodNanos)
+			nextDeadline = now;
+		while (sleep && now < nextDeadline)
+		{
+			LockSupport.parkNanos(nextDeadline - now);
+			now = System.nanoTime();
+		}
+
+		if (now - windowStart >= WINDOW_NANOS)
+		{
+			double seconds = (now - windowStart) / 1e9;
+			fps = windowFrames / seconds;
+			tickRate = windowTicks / seconds;
+			windowStart = now;
+			windowFrames = windowTicks = 0;
+		}
+	}
+
+	/**
+	 * Returns the achieved frame rate over the last measurement window
+	 * @return the frames rendered per second
+	 */
+	public double getFps()
+	{
+		return fps;
+	}
+
+	/**
+	 * Returns the achieved tick rate over the last measurement window
+	 * @return the ticks run per second
+	 */
+	public double getTickRate()
+	{
+		return tickRate;
+	}
+
+	/**
+	 * Returns the time spent computing during the last frame
+	 * @return the computation time in milliseconds
+	 */
+	public double getComputeMillis()
+	{
+		return computeNanos / 1e6;
+	}
+
+	/**
+	 * Returns the time spent rendering during the last frame
+	 * @return the rendering time in milliseconds
+	 */
+	public double getRenderMillis()
+	{
+		return renderNanos / 1e6;
+	}
+}
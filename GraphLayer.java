@@ -0,0 +1,126 @@
+/**
+ * GraphLayer.java
+ *
+ * Keeps the background graph in its own off-screen image with
+ * one column of pixels per slice, instead of redrawing every
+ * slice as rectangles each frame. When new slices arrive, the
+ * image is shifted left by that many columns and only the new
+ * columns are drawn on the right, so adding to the graph costs
+ * the same no matter how many slices are shown. The image is
+ * then stretched over the canvas with a single draw call.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class GraphLayer
+{
+	private static final int BACKGROUND = Color.LIGHT_GRAY.getRGB(), CURED = Palette.GRAPH_CURED.getRGB(),
+		INFECTED = Palette.GRAPH_INFECTED.getRGB(), DEAD = Palette.GRAPH_DEAD.getRGB();
+
+	private final BufferedImage image;
+	private final int[] pixels;
+	private final int slices, height;
+	private long columns;
+
+	/**
+	 * Instantiates an empty GraphLayer object
+	 * @param slices the number of slices shown (one column of pixels each)
+	 * @param height the height of the graph in pixels
+	 */
+	public GraphLayer(int slices, int height)
+	{
+		this.slices = slices;
+		this.height = height;
+		image = new BufferedImage(slices, height, BufferedImage.TYPE_INT_ARGB);
+		pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		clear();
+	}
+
+	/**
+	 * Returns the image holding the graph, with the most recent slice on the right
+	 * @return the image
+	 */
+	public BufferedImage getImage()
+	{
+		return image;
+	}
+
+	/**
+	 * Returns the number of slices that have ever been added to the graph
+	 * @return the number of slices
+	 */
+	public long getColumns()
+	{
+		return columns;
+	}
+
+	/**
+	 * Erases the graph
+	 */
+	public void clear()
+	{
+		Arrays.fill(pixels, BACKGROUND);
+		columns = 0;
+	}
+
+	/**
+	 * Adds the slices in the given snapshot that are not in the graph yet,
+	 * scrolling the graph left to make room for them
+	 * @param snapshot the snapshot holding the newest slices of history
+	 */
+	public void update(Snapshot snapshot)
+	{
+		long first = snapshot.getHistoryStart(), end = first + snapshot.getHistorySize();
+		if (first > columns)
+		{
+			// too far behind to scroll: the snapshot holds every visible slice, so start over
+			Arrays.fill(pixels, BACKGROUND);
+			columns = first;
+		}
+		int added = (int)Math.min(slices, end - columns);
+		if (added <= 0)
+			return;
+		for (int row = 0; row < height; row++)
+			System.arraycopy(pixels, row * slices + added, pixels, row * slices, slices - added);
+		for (long index = end - added; index < end; index++)
+		{
+			int i = (int)(index - first);
+			drawColumn(slices - (int)(end - index), snapshot.getCured(i), snapshot.getHealthy(i),
+				snapshot.getInfected(i), snapshot.getDead(i));
+		}
+		columns = end;
+	}
+
+	/**
+	 * Draws one slice of the graph: from the top, the fraction of people
+	 * cured, uninfected (left as background), infected, and dead
+	 * @param column the column of pixels to draw in
+	 * @param cured the fraction of people cured
+	 * @param healthy the fraction of people uninfected
+	 * @param infected the fraction of people infected
+	 * @param dead the fraction of people dead
+	 */
+	private void drawColumn(int column, double cured, double healthy, double infected, double dead)
+	{
+		int curedEnd = (int)Math.round(cured * height), healthyEnd = (int)Math.round((cured + healthy) * height),
+			infectedEnd = (int)Math.round((cured + healthy + infected) * height),
+			deadEnd = (int)Math.round((cured + healthy + infected + dead) * height);
+		for (int row = 0; row < height; row++)
+		{
+			int color = BACKGROUND;
+			if (row < curedEnd)
+				color = CURED;
+			else if (row >= healthyEnd && row < infectedEnd)
+				color = INFECTED;
+			else if (row >= infectedEnd && row < deadEnd)
+				color = DEAD;
+			pixels[row * slices + column] = color;
+		}
+	}
+}
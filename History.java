@@ -0,0 +1,169 @@
+/**
+ * History.java
+ *
+ * Keeps the fraction of people uninfected, infected, cured,
+ * and dead for the most recent ticks of the simulation, in a
+ * fixed-size ring buffer of primitive doubles. Entries are
+ * numbered from 0 in the order they were added; once the
+ * buffer is full, adding an entry overwrites the oldest one.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class History
+{
+	private final double[] healthy, infected, cured, dead;
+	private long total;
+
+	/**
+	 * Instantiates an empty History object
+	 * @param capacity the number of most recent entries to keep
+	 */
+	public History(int capacity)
+	{
+		healthy = new double[capacity];
+		infected = new double[capacity];
+		cured = new double[capacity];
+		dead = new double[capacity];
+		total = 0;
+	}
+
+	/**
+	 * Instantiates a History object from a checkpoint written by write()
+	 * @param in the checkpoint, positioned at the start of the history
+	 */
+	public History(ByteBuffer in)
+	{
+		this(in.getInt());
+		total = in.getLong();
+		for (double[] column : new double[][] {healthy, infected, cured, dead})
+		{
+			in.asDoubleBuffer().get(column);
+			in.position(in.position() + 8 * column.length);
+		}
+	}
+
+	/**
+	 * Writes the whole history (including entries that have not been
+	 * filled yet) to a checkpoint
+	 * @param out where to write the history
+	 */
+	public void write(ByteBuffer out)
+	{
+		out.putInt(healthy.length).putLong(total);
+		for (double[] column : new double[][] {healthy, infected, cured, dead})
+		{
+			out.asDoubleBuffer().put(column);
+			out.position(out.position() + 8 * column.length);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that write() uses
+	 * @return the number of bytes
+	 */
+	public int getBytes()
+	{
+		return 4 + 8 + 4 * 8 * healthy.length;
+	}
+
+	/**
+	 * Removes every entry, keeping the arrays (so that the history can be reused)
+	 */
+	public void clear()
+	{
+		Arrays.fill(healthy, 0);
+		Arrays.fill(infected, 0);
+		Arrays.fill(cured, 0);
+		Arrays.fill(dead, 0);
+		total = 0;
+	}
+
+	/**
+	 * Adds an entry, overwriting the oldest entry if the history is full
+	 * @param healthy the fraction of people uninfected
+	 * @param infected the fraction of people infected
+	 * @param cured the fraction of people cured
+	 * @param dead the fraction of people dead
+	 */
+	public void add(double healthy, double infected, double cured, double dead)
+	{
+		int slot = (int)(total % this.healthy.length);
+		this.healthy[slot] = healthy;
+		this.infected[slot] = infected;
+		this.cured[slot] = cured;
+		this.dead[slot] = dead;
+		total++;
+	}
+
+	/**
+	 * Returns the number of entries that have ever been added
+	 * @return the total number of entries
+	 */
+	public long getTotal()
+	{
+		return total;
+	}
+
+	/**
+	 * Returns the number of the oldest entry that is still kept
+	 * @return the number of the oldest entry
+	 */
+	public long getFirst()
+	{
+		return Math.max(0, total - healthy.length);
+	}
+
+	/**
+	 * Determines if no entries have been added yet
+	 * @return whether or not the history is empty
+	 */
+	public boolean isEmpty()
+	{
+		return total == 0;
+	}
+
+	/**
+	 * Returns the fraction of people uninfected in an entry
+	 * @param index the number of the entry (from getFirst() to getTotal() - 1)
+	 * @return the fraction uninfected
+	 */
+	public double getHealthy(long index)
+	{
+		return healthy[(int)(index % healthy.length)];
+	}
+
+	/**
+	 * Returns the fraction of people infected in an entry
+	 * @param index the number of the entry (from getFirst() to getTotal() - 1)
+	 * @return the fraction infected
+	 */
+	public double getInfected(long index)
+	{
+		return infected[(int)(index % infected.length)];
+	}
+
+	/**
+	 * Returns the fraction of people cured in an entry
+	 * @param index the number of the entry (from getFirst() to getTotal() - 1)
+	 * @return the fraction cured
+	 */
+	public double getCured(long index)
+	{
+		return cured[(int)(index % cured.length)];
+	}
+
+	/**
+	 * Returns the fraction of people dead in an entry
+	 * @param index the number of the entry (from getFirst() to getTotal() - 1)
+	 * @return the fraction dead
+	 */
+	public double getDead(long index)
+	{
+		return dead[(int)(index % dead.length)];
+	}
+}
@@ -0,0 +1,434 @@
+/**
+ * InfectionTree.java
+ *
+ * Keeps track of who infected whom and when, so that the
+ * effective reproduction number R(t) and the generation interval
+ * (the ticks between a person being infected and infecting
+ * someone else) can be read while the simulation runs. Each
+ * person's infector, infection tick, and number of secondary
+ * cases are kept in arrays indexed by id, and every infection or
+ * recovery only updates a few counters, so nothing has to be
+ * worked out afterwards from a log of contacts.
+ *
+ * Two estimates of R(t) are kept. People are grouped into
+ * cohorts by when they were infected, and a cohort's R is the
+ * average number of people its members went on to infect, which
+ * is final once all of them have stopped being infectious. The
+ * recent R is the average number of people infected by those who
+ * stopped being infectious (recovered or died) in the last
+ * window of ticks, which follows the epidemic with a short delay.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class InfectionTree
+{
+	/** The infector of a person who was infected from the start, or who has not been infected */
+	public static final int NONE = -1;
+
+	/** The default number of ticks in a cohort */
+	public static final int COHORT_TICKS = 50;
+
+	/** The default number of ticks that the recent estimates look back over */
+	public static final int WINDOW_TICKS = 200;
+
+	/** The number of cohorts that there is room for at first (with the default cohort size, longer than most epidemics last) */
+	private static final int INITIAL_COHORTS = 64;
+
+	private final int[] infector, infectionTick, secondary;
+	private final int cohortTicks, window;
+	private int[] cohortSize, cohortSecondary, cohortResolved;
+	private int cohorts;
+	private final int[] bucketTick, bucketResolved, bucketSecondary, bucketInfections;
+	private final long[] bucketIntervals;
+	private long infections, intervalSum, intervalSquares;
+
+	/**
+	 * Instantiates an InfectionTree object in which nobody is infected
+	 * @param people the number of people (ids 0 to people - 1)
+	 * @param cohortTicks the number of ticks in a cohort
+	 * @param window the number of ticks that the recent estimates look back over
+	 */
+	public InfectionTree(int people, int cohortTicks, int window)
+	{
+		infector = new int[people];
+		infectionTick = new int[people];
+		secondary = new int[people];
+		Arrays.fill(infector, NONE);
+		Arrays.fill(infectionTick, NONE);
+		this.cohortTicks = Math.max(1, cohortTicks);
+		this.window = Math.max(1, window);
+		cohortSize = new int[INITIAL_COHORTS];
+		cohortSecondary = new int[INITIAL_COHORTS];
+		cohortResolved = new int[INITIAL_COHORTS];
+		bucketTick = new int[this.window];
+		bucketResolved = new int[this.window];
+		bucketSecondary = new int[this.window];
+		bucketInfections = new int[this.window];
+		bucketIntervals = new long[this.window];
+		Arrays.fill(bucketTick, NONE);
+	}
+
+	/**
+	 * Instantiates an InfectionTree object with the default cohort size and window
+	 * @param people the number of people (ids 0 to people - 1)
+	 */
+	public InfectionTree(int people)
+	{
+		this(people, COHORT_TICKS, WINDOW_TICKS);
+	}
+
+	/**
+	 * Instantiates an InfectionTree object from the state written by write()
+	 * @param in the state, positioned at its start
+	 */
+	public InfectionTree(ByteBuffer in)
+	{
+		int people = in.getInt();
+		cohortTicks = in.getInt();
+		window = in.getInt();
+		cohorts = in.getInt();
+		infections = in.getLong();
+		intervalSum = in.getLong();
+		intervalSquares = in.getLong();
+		infector = getInts(in, people);
+		infectionTick = getInts(in, people);
+		secondary = getInts(in, people);
+		int saved = Math.max(16, cohorts), length = Math.max(INITIAL_COHORTS, saved);
+		cohortSize = Arrays.copyOf(getInts(in, saved), length);
+		cohortSecondary = Arrays.copyOf(getInts(in, saved), length);
+		cohortResolved = Arrays.copyOf(getInts(in, saved), length);
+		bucketTick = getInts(in, window);
+		bucketResolved = getInts(in, window);
+		bucketSecondary = getInts(in, window);
+		bucketInfections = getInts(in, window);
+		bucketIntervals = new long[window];
+		in.asLongBuffer().get(bucketIntervals);
+		in.position(in.position() + 8 * window);
+	}
+
+	/**
+	 * Reads an array of ints
+	 * @param in where to read from
+	 * @param length the number of ints
+	 * @return the ints
+	 */
+	private static int[] getInts(ByteBuffer in, int length)
+	{
+		int[] values = new int[length];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + 4 * length);
+		return values;
+	}
+
+	/**
+	 * Forgets every infection, as if nobody had been infected yet, keeping
+	 * the arrays (so that a tree for the same people can be reused)
+	 */
+	public void reset()
+	{
+		Arrays.fill(infector, NONE);
+		Arrays.fill(infectionTick, NONE);
+		Arrays.fill(secondary, 0);
+		Arrays.fill(cohortSize, 0);
+		Arrays.fill(cohortSecondary, 0);
+		Arrays.fill(cohortResolved, 0);
+		cohorts = 0;
+		Arrays.fill(bucketTick, NONE);
+		Arrays.fill(bucketResolved, 0);
+		Arrays.fill(bucketSecondary, 0);
+		Arrays.fill(bucketInfections, 0);
+		Arrays.fill(bucketIntervals, 0);
+		infections = 0;
+		intervalSum = 0;
+		intervalSquares = 0;
+	}
+
+	/**
+	 * Returns the number of people that the tree tracks
+	 * @return the number of people (ids 0 to people - 1)
+	 */
+	public int getPeople()
+	{
+		return infector.length;
+	}
+
+	/**
+	 * Returns the number of bytes that write() will write
+	 * @return the size of the state in bytes
+	 */
+	public int getBytes()
+	{
+		return 4 * 4 + 3 * 8 + 3 * 4 * infector.length + 3 * 4 * Math.max(16, cohorts) + 4 * 4 * window + 8 * window;
+	}
+
+	/**
+	 * Writes everything needed to continue tracking exactly
+	 * @param out where to write the state (with at least getBytes() bytes left)
+	 */
+	public void write(ByteBuffer out)
+	{
+		int saved = Math.max(16, cohorts);
+		out.putInt(infector.length).putInt(cohortTicks).putInt(window).putInt(cohorts);
+		out.putLong(infections).putLong(intervalSum).putLong(intervalSquares);
+		putInts(out, infector, infector.length);
+		putInts(out, infectionTick, infectionTick.length);
+		putInts(out, secondary, secondary.length);
+		putInts(out, cohortSize, saved);
+		putInts(out, cohortSecondary, saved);
+		putInts(out, cohortResolved, saved);
+		putInts(out, bucketTick, window);
+		putInts(out, bucketResolved, window);
+		putInts(out, bucketSecondary, window);
+		putInts(out, bucketInfections, window);
+		out.asLongBuffer().put(bucketIntervals);
+		out.position(out.position() + 8 * window);
+	}
+
+	/**
+	 * Writes the start of an array of ints
+	 * @param out where to write to
+	 * @param values the ints
+	 * @param length the number of ints to write
+	 */
+	private static void putInts(ByteBuffer out, int[] values, int length)
+	{
+		out.asIntBuffer().put(values, 0, length);
+		out.position(out.position() + 4 * length);
+	}
+
+	/**
+	 * Records a person who is infected without an infector (at the start of a run)
+	 * @param id the id of the person
+	 * @param tick the tick that they were infected in
+	 */
+	public void seed(int id, long tick)
+	{
+		infectionTick[id] = (int)tick;
+		int cohort = cohort(tick);
+		cohortSize[cohort]++;
+	}
+
+	/**
+	 * Records one person infecting another
+	 * @param infectorId the id of the infector
+	 * @param id the id of the person infected
+	 * @param tick the tick that the infection happened in
+	 */
+	public void infect(int infectorId, int id, long tick)
+	{
+		infector[id] = infectorId;
+		infectionTick[id] = (int)tick;
+		int cohort = cohort(tick);
+		cohortSize[cohort]++;
+		secondary[infectorId]++;
+		cohortSecondary[infectionTick[infectorId] / cohortTicks]++;
+
+		long interval = tick - infectionTick[infectorId];
+		infections++;
+		intervalSum += interval;
+		intervalSquares += interval * interval;
+		int b = bucket(tick);
+		bucketInfections[b]++;
+		bucketIntervals[b] += interval;
+	}
+
+	/**
+	 * Records a person stopping being infectious (by recovering or dying)
+	 * @param id the id of the person
+	 * @param tick the tick that it happened in
+	 */
+	public void resolve(int id, long tick)
+	{
+		cohortResolved[infectionTick[id] / cohortTicks]++;
+		int b = bucket(tick);
+		bucketResolved[b]++;
+		bucketSecondary[b] += secondary[id];
+	}
+
+	/**
+	 * Returns the cohort that a tick is in, adding cohorts as needed
+	 * @param tick the tick
+	 * @return the cohort
+	 */
+	private int cohort(long tick)
+	{
+		int cohort = (int)(tick / cohortTicks);
+		if (cohort >= cohortSize.length)
+		{
+			int length = Math.max(cohort + 1, cohortSize.length * 2);
+			cohortSize = Arrays.copyOf(cohortSize, length);
+			cohortSecondary = Arrays.copyOf(cohortSecondary, length);
+			cohortResolved = Arrays.copyOf(cohortResolved, length);
+		}
+		cohorts = Math.max(cohorts, cohort + 1);
+		return cohort;
+	}
+
+	/**
+	 * Returns the bucket of the recent window that a tick is counted in,
+	 * emptying it first if it last held an older tick
+	 * @param tick the tick
+	 * @return the bucket
+	 */
+	private int bucket(long tick)
+	{
+		int b = (int)(tick % window);
+		if (bucketTick[b] != (int)tick)
+		{
+			bucketTick[b] = (int)tick;
+			bucketResolved[b] = bucketSecondary[b] = bucketInfections[b] = 0;
+			bucketIntervals[b] = 0;
+		}
+		return b;
+	}
+
+	/**
+	 * Returns who infected a person
+	 * @param id the id of the person
+	 * @return the id of the infector, or NONE if the person was infected from the start or never infected
+	 */
+	public int getInfector(int id)
+	{
+		return infector[id];
+	}
+
+	/**
+	 * Returns when a person was infected
+	 * @param id the id of the person
+	 * @return the tick, or NONE if the person has not been infected
+	 */
+	public int getInfectionTick(int id)
+	{
+		return infectionTick[id];
+	}
+
+	/**
+	 * Returns how many people a person has infected
+	 * @param id the id of the person
+	 * @return the number of secondary cases
+	 */
+	public int getSecondaryCases(int id)
+	{
+		return secondary[id];
+	}
+
+	/**
+	 * Returns the number of ticks in a cohort
+	 * @return the cohort length in ticks
+	 */
+	public int getCohortTicks()
+	{
+		return cohortTicks;
+	}
+
+	/**
+	 * Returns the number of cohorts so far
+	 * @return the number of cohorts
+	 */
+	public int getCohorts()
+	{
+		return cohorts;
+	}
+
+	/**
+	 * Returns the number of people infected during a cohort
+	 * @param cohort the cohort (ticks cohort * getCohortTicks() onwards)
+	 * @return the number of people
+	 */
+	public int getCohortSize(int cohort)
+	{
+		return cohortSize[cohort];
+	}
+
+	/**
+	 * Returns whether everyone infected during a cohort has stopped being
+	 * infectious, so that its R is final
+	 * @param cohort the cohort
+	 * @return whether the cohort is resolved
+	 */
+	public boolean isCohortResolved(int cohort)
+	{
+		return cohortResolved[cohort] == cohortSize[cohort];
+	}
+
+	/**
+	 * Returns the average number of people infected by those infected during a cohort
+	 * @param cohort the cohort
+	 * @return the cohort's reproduction number, or NaN if nobody was infected during it
+	 */
+	public double getCohortR(int cohort)
+	{
+		return cohortSize[cohort] == 0 ? Double.NaN : cohortSecondary[cohort] / (double)cohortSize[cohort];
+	}
+
+	/**
+	 * Returns the average number of people infected by those who stopped being
+	 * infectious in the window of ticks up to and including the given tick
+	 * @param tick the current tick
+	 * @return the recent reproduction number, or NaN if nobody stopped being infectious in the window
+	 */
+	public double getRecentR(long tick)
+	{
+		long resolved = 0, secondaryCases = 0;
+		for (int b = 0; b < window; b++)
+			if (bucketTick[b] != NONE && bucketTick[b] > tick - window && bucketTick[b] <= tick)
+			{
+				resolved += bucketResolved[b];
+				secondaryCases += bucketSecondary[b];
+			}
+		return resolved == 0 ? Double.NaN : secondaryCases / (double)resolved;
+	}
+
+	/**
+	 * Returns the average generation interval of the infections in the window
+	 * of ticks up to and including the given tick
+	 * @param tick the current tick
+	 * @return the interval in ticks, or NaN if nobody was infected in the window
+	 */
+	public double getRecentGenerationInterval(long tick)
+	{
+		long count = 0, sum = 0;
+		for (int b = 0; b < window; b++)
+			if (bucketTick[b] != NONE && bucketTick[b] > tick - window && bucketTick[b] <= tick)
+			{
+				count += bucketInfections[b];
+				sum += bucketIntervals[b];
+			}
+		return count == 0 ? Double.NaN : sum / (double)count;
+	}
+
+	/**
+	 * Returns the number of people infected by someone else so far
+	 * @return the number of infections
+	 */
+	public long getInfections()
+	{
+		return infections;
+	}
+
+	/**
+	 * Returns the average generation interval over every infection so far
+	 * @return the interval in ticks, or NaN if nobody has been infected by someone else
+	 */
+	public double getGenerationInterval()
+	{
+		return infections == 0 ? Double.NaN : intervalSum / (double)infections;
+	}
+
+	/**
+	 * Returns the standard deviation of the generation interval over every infection so far
+	 * @return the standard deviation in ticks, or NaN if nobody has been infected by someone else
+	 */
+	public double getGenerationIntervalDeviation()
+	{
+		if (infections == 0)
+			return Double.NaN;
+		double mean = intervalSum / (double)infections;
+		return Math.sqrt(Math.max(0.0, intervalSquares / (double)infections - mean * mean));
+	}
+}
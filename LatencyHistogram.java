@@ -0,0 +1,227 @@
+/**
+ * LatencyHistogram.java
+ *
+ * Counts how often each latency (in nanoseconds) happens, using a
+ * fixed amount of memory and no allocation, so that percentiles
+ * such as the 99.9th can be reported instead of only the mean,
+ * which hides the occasional slow tick or frame. Like an HDR
+ * histogram, values are grouped into buckets whose width grows
+ * with the value: below 2 * SUB_BUCKETS nanoseconds every value
+ * has its own bucket, and above that each power of two is split
+ * into SUB_BUCKETS equal buckets, so every value is known to
+ * within 1 / SUB_BUCKETS (under 1%) across the whole range of a
+ * long. Recording a value is a few shifts and an increment. A
+ * histogram is not safe to read while another thread records
+ * into it; such a thread should record under a lock that readers
+ * take to copy it (as Renderer does with the frame latencies).
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.Arrays;
+
+public class LatencyHistogram
+{
+	/** The number of bits of each value that are kept exactly */
+	public static final int SUB_BUCKET_BITS = 7;
+
+	/** The number of buckets that each power of two is split into */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** The number of buckets needed for every non-negative long */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts;
+	private long count, sum, min = Long.MAX_VALUE, max;
+
+	/**
+	 * Instantiates an empty LatencyHistogram object
+	 */
+	public LatencyHistogram()
+	{
+		counts = new long[BUCKETS];
+	}
+
+	/**
+	 * Returns the bucket that a value is counted in
+	 * @param value the value (at least 0)
+	 * @return the bucket
+	 */
+	private static int bucket(long value)
+	{
+		int shift = 63 - Long.numberOfLeadingZeros(value | SUB_BUCKETS) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int)(value >>> shift);
+	}
+
+	/**
+	 * Returns the smallest value counted in a bucket
+	 * @param bucket the bucket
+	 * @return the smallest value
+	 */
+	private static long lowest(int bucket)
+	{
+		int shift = Math.max(0, (bucket >> SUB_BUCKET_BITS) - 1);
+		return (long)(bucket - (shift << SUB_BUCKET_BITS)) << shift;
+	}
+
+	/**
+	 * Returns the largest value counted in a bucket
+	 * @param bucket the bucket
+	 * @return the largest value
+	 */
+	private static long highest(int bucket)
+	{
+		int shift = Math.max(0, (bucket >> SUB_BUCKET_BITS) - 1);
+		return lowest(bucket) + (1L << shift) - 1;
+	}
+
+	/**
+	 * Counts one value
+	 * @param nanos the latency in nanoseconds (negative values are counted as 0)
+	 */
+	public void record(long nanos)
+	{
+		nanos = Math.max(0, nanos);
+		counts[bucket(nanos)]++;
+		count++;
+		sum += nanos;
+		if (nanos < min)
+			min = nanos;
+		if (nanos > max)
+			max = nanos;
+	}
+
+	/**
+	 * Returns the number of values counted
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the smallest value counted
+	 * @return the smallest value in nanoseconds, or 0 if nothing was counted
+	 */
+	public long getMin()
+	{
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest value counted
+	 * @return the largest value in nanoseconds, or 0 if nothing was counted
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+
+	/**
+	 * Returns the average of the values counted
+	 * @return the mean in nanoseconds, or 0 if nothing was counted
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0.0 : sum / (double)count;
+	}
+
+	/**
+	 * Returns the value that the given percent of values are at or below
+	 * (to within the width of its bucket, and never above the maximum)
+	 * @param percentile the percent (0 to 100)
+	 * @return the value in nanoseconds, or 0 if nothing was counted
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if (count == 0)
+			return 0;
+		long target = Math.max(1, (long)Math.ceil(Math.min(100.0, percentile) / 100.0 * count)), seen = 0;
+		for (int b = 0; b < counts.length; b++)
+		{
+			seen += counts[b];
+			if (seen >= target)
+				return Math.min(max, Math.max(getMin(), highest(b)));
+		}
+		return max;
+	}
+
+	/**
+	 * Empties the histogram
+	 */
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		count = sum = max = 0;
+		min = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Adds every value counted by another histogram to this one
+	 * @param other the other histogram
+	 */
+	public void add(LatencyHistogram other)
+	{
+		for (int b = 0; b < counts.length; b++)
+			counts[b] += other.counts[b];
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Makes this histogram hold the values counted by one histogram since it
+	 * held what another holds (eg. the values since the last report, from the
+	 * running histogram and a copy of it taken at the last report). The
+	 * smallest and largest values are known only to within their buckets
+	 * @param now the histogram now
+	 * @param before a copy of the same histogram taken earlier
+	 */
+	public void setToDifference(LatencyHistogram now, LatencyHistogram before)
+	{
+		count = sum = max = 0;
+		min = Long.MAX_VALUE;
+		for (int b = 0; b < counts.length; b++)
+		{
+			counts[b] = Math.max(0, now.counts[b] - before.counts[b]);
+			if (counts[b] == 0)
+				continue;
+			count += counts[b];
+			min = Math.min(min, lowest(b));
+			max = highest(b);
+		}
+		sum = Math.max(0, now.sum - before.sum);
+		if (count > 0)
+		{
+			min = Math.max(min, now.getMin());
+			max = Math.min(max, now.max);
+		}
+	}
+
+	/**
+	 * Makes this histogram a copy of another
+	 * @param other the histogram to copy
+	 */
+	public void copyFrom(LatencyHistogram other)
+	{
+		System.arraycopy(other.counts, 0, counts, 0, counts.length);
+		count = other.count;
+		sum = other.sum;
+		min = other.min;
+		max = other.max;
+	}
+
+	/**
+	 * Returns the median, 99th and 99.9th percentiles, and maximum in milliseconds
+	 * @return the summary, eg. "p50 1.21 ms, p99 3.40 ms, p99.9 8.02 ms, max 12.51 ms (5000 samples)"
+	 */
+	public String toString()
+	{
+		return String.format("p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms (%d samples)",
+			getValueAtPercentile(50) / 1e6, getValueAtPercentile(99) / 1e6, getValueAtPercentile(99.9) / 1e6,
+			getMax() / 1e6, getCount());
+	}
+}
@@ -0,0 +1,374 @@
+/**
+ * Launcher.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java Launcher" followed by
+ * any of the settings below as name=value, and the names of any
+ * properties files holding them (later settings override earlier
+ * ones, wherever they are), eg.
+ * "java Launcher people=1000 seed=7 replicas=20 results=results.csv" or
+ * "java Launcher batch.properties task=$SLURM_ARRAY_TASK_ID".
+ *
+ * Starts simulations from settings alone, without asking for
+ * anything on the terminal, so that it can be run by a scheduler
+ * (eg. as one task of an array job) with no terminal or display.
+ * Unless headless is false, no window is opened and no AWT class
+ * is even loaded: each replica runs until it finishes (see
+ * Simulation.setTermination) and adds one line to the results.
+ * The settings, with their defaults, are:
+ *   people=500 infectRate=0.6 shelterInPlaceRate=0.2 deathRate=0.3
+ *   rooms=3             the simulation (see SimulationConfig)
+ *   seed=1              the seed of the first replica of task 0
+ *   replicas=1          the number of replicas in this task
+ *   task=0              the number of this task; replica r of task t
+ *                       uses the seed seed + t * replicas + r, so
+ *                       tasks never share a seed
+ *   steadyTicks=0       end a replica once the counts stay the same
+ *                       for this many ticks (0 waits for extinction)
+ *   maxTicks=100000     the most ticks a replica may run
+ *   engine=GRID         GRID or PAIR_LOOP (see Simulation.Engine)
+ *   results=            the CSV file of one line per replica (task,
+ *                       replica, seed, outcome, ticks, then the final
+ *                       fractions uninfected, cured, and dead and the
+ *                       peak fraction infected); empty for the console
+ *   export=             the time series file of every replica (see
+ *                       TimeSeriesWriter); empty for none
+ *   contacts=           the contact file of every replica (see
+ *                       ContactRecorder); empty for none
+ *   headless=true       false runs one replica in a window instead
+ * "{task}" in a file name is replaced by the task number, so that
+ * every task of an array job can be given the same settings. Bad
+ * settings are reported and exit with status 2, and files that
+ * cannot be written exit with status 1.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+
+public class Launcher
+{
+	/** The name of every setting, in the order they are described */
+	private static final String[] SETTINGS = {"people", "infectRate", "shelterInPlaceRate", "deathRate", "rooms", "seed",
+		"replicas", "task", "steadyTicks", "maxTicks", "engine", "results", "export", "contacts", "headless"};
+
+	/** The default of every setting, in the same order */
+	private static final String[] DEFAULTS = {"500", "0.6", "0.2", "0.3", "3", "1", "1", "0", "0", "100000", "GRID", "",
+		"", "", "true"};
+
+	/** The first line of the results */
+	private static final String HEADER = "task,replica,seed,outcome,ticks,uninfected,cured,dead,peak_infected";
+
+	private final Properties settings;
+
+	/**
+	 * Instantiates a Launcher object with the default settings
+	 */
+	public Launcher()
+	{
+		Properties defaults = new Properties();
+		for (int i = 0; i < SETTINGS.length; i++)
+			defaults.setProperty(SETTINGS[i], DEFAULTS[i]);
+		settings = new Properties(defaults);
+	}
+
+	/**
+	 * Reads the settings and runs the simulations they describe
+	 * @param args settings as name=value and properties files, in the order they apply
+	 */
+	public static void main(String[] args)
+	{
+		Launcher launcher = new Launcher();
+		try
+		{
+			for (String arg : args)
+				launcher.apply(arg);
+			launcher.check();
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Cannot read settings: " + e.getMessage());
+			System.exit(2);
+		}
+		try
+		{
+			if (launcher.getBoolean("headless"))
+				launcher.runHeadless();
+			else
+				launcher.runWindowed();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Cannot write results: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Applies one argument: a setting as name=value, or a properties file
+	 * @param arg the argument
+	 * @throws IOException if the properties file cannot be read
+	 */
+	public void apply(String arg) throws IOException
+	{
+		int equals = arg.indexOf('=');
+		if (equals > 0)
+		{
+			settings.setProperty(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+			return;
+		}
+		try (Reader in = new FileReader(arg))
+		{
+			settings.load(in);
+		}
+	}
+
+	/**
+	 * Makes sure that every setting is known and can be read, so that a
+	 * mistake is reported before anything runs rather than part way through
+	 * @throws IllegalArgumentException if a setting is unknown or has a bad value
+	 */
+	public void check()
+	{
+		HashSet<String> known = new HashSet<String>(Arrays.asList(SETTINGS));
+		for (String name : settings.stringPropertyNames())
+			if (!known.contains(name))
+				throw new IllegalArgumentException("Unknown setting " + name + "; the settings are " + String.join(", ", SETTINGS));
+		SimulationConfig config = getConfig();
+		if (config.getPeople() < 1 || config.getRooms() < 0)
+			throw new IllegalArgumentException("There must be at least one person and no fewer than zero rooms");
+		if (getInt("replicas") < 0 || getInt("task") < 0)
+			throw new IllegalArgumentException("replicas and task cannot be negative");
+		getLong("seed");
+		getInt("steadyTicks");
+		getLong("maxTicks");
+		getEngine();
+		getBoolean("headless");
+	}
+
+	/**
+	 * Returns the simulation that the settings describe
+	 * @return the number of people, the rates of the virus, and the number of rooms
+	 */
+	public SimulationConfig getConfig()
+	{
+		return new SimulationConfig(getInt("people"), getRate("infectRate"), getRate("shelterInPlaceRate"),
+			getRate("deathRate"), getInt("rooms"));
+	}
+
+	/**
+	 * Returns the seed of the first replica of this task
+	 * @return the seed
+	 */
+	public long getFirstSeed()
+	{
+		return getLong("seed") + getLong("task") * getInt("replicas");
+	}
+
+	/**
+	 * Runs every replica of this task without a window, reusing one simulation
+	 * @throws IOException if the results or the recordings cannot be written
+	 */
+	public void runHeadless() throws IOException
+	{
+		SimulationConfig config = getConfig();
+		int replicas = getInt("replicas"), task = getInt("task");
+		long firstSeed = getFirstSeed();
+		File resultsFile = getFile("results"), exportFile = getFile("export"), contactsFile = getFile("contacts");
+		PrintStream results = resultsFile == null ? System.out : new PrintStream(resultsFile);
+		TimeSeriesWriter exporter = exportFile == null ? null : new TimeSeriesWriter(exportFile, false);
+		ContactRecorder contacts = contactsFile == null ? null : new ContactRecorder(contactsFile, config.getPeople());
+		try
+		{
+			results.println(HEADER);
+			Simulation simulation = null;
+			for (int replica = 0; replica < replicas; replica++)
+			{
+				long seed = firstSeed + replica;
+				if (simulation == null)
+				{
+					simulation = new Simulation(config, seed);
+					simulation.setEngine(getEngine());
+					simulation.setTermination(getInt("steadyTicks"), getLong("maxTicks"));
+					simulation.setExporter(exporter);
+					simulation.setContactRecorder(contacts);
+				}
+				else
+					simulation.reset(config, seed);
+				Simulation.Outcome outcome = simulation.run();
+				double people = config.getPeople();
+				results.printf("%d,%d,%d,%s,%d,%.6f,%.6f,%.6f,%.6f%n", task, replica, seed, outcome, simulation.getTickCount(),
+					simulation.getCount(0) / people, simulation.getCount(2) / people, simulation.getCount(3) / people,
+					simulation.getPeakInfected() / people);
+			}
+		}
+		finally
+		{
+			if (exporter != null)
+				exporter.close();
+			if (contacts != null)
+				contacts.close();
+			if (results != System.out)
+				results.close();
+			else
+				results.flush();
+		}
+		if (results.checkError())
+			throw new IOException("the results could not all be written");
+	}
+
+	/**
+	 * Runs the first replica of this task in a window, as "java Simulation"
+	 * does after asking for the settings, then shows the statistics
+	 * @throws IOException if the recordings cannot be written
+	 */
+	public void runWindowed() throws IOException
+	{
+		SimulationConfig config = getConfig();
+		File exportFile = getFile("export"), contactsFile = getFile("contacts");
+		TimeSeriesWriter exporter = exportFile == null ? null : new TimeSeriesWriter(exportFile, false);
+		ContactRecorder contacts = contactsFile == null ? null : new ContactRecorder(contactsFile, config.getPeople());
+		try
+		{
+			Simulation simulation = new Simulation(config, getFirstSeed());
+			simulation.setEngine(getEngine());
+			simulation.setTermination(getInt("steadyTicks"), getLong("maxTicks"));
+			simulation.setExporter(exporter);
+			simulation.setContactRecorder(contacts);
+			simulation.start();
+		}
+		finally
+		{
+			if (exporter != null)
+				exporter.close();
+			if (contacts != null)
+				contacts.close();
+		}
+		System.out.println("\n\n");
+		Simulation.showStatistics();
+	}
+
+	/**
+	 * Returns the value of a setting
+	 * @param name the name of the setting
+	 * @return the value, without surrounding spaces
+	 */
+	private String get(String name)
+	{
+		return settings.getProperty(name).trim();
+	}
+
+	/**
+	 * Returns the value of a setting that is a whole number
+	 * @param name the name of the setting
+	 * @return the value
+	 * @throws IllegalArgumentException if the value is not a whole number
+	 */
+	private int getInt(String name)
+	{
+		try
+		{
+			return Integer.parseInt(get(name));
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException(name + " must be a whole number: " + get(name));
+		}
+	}
+
+	/**
+	 * Returns the value of a setting that is a whole number, which may be large
+	 * @param name the name of the setting
+	 * @return the value
+	 * @throws IllegalArgumentException if the value is not a whole number
+	 */
+	private long getLong(String name)
+	{
+		try
+		{
+			return Long.parseLong(get(name));
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException(name + " must be a whole number: " + get(name));
+		}
+	}
+
+	/**
+	 * Returns the value of a setting that is a rate
+	 * @param name the name of the setting
+	 * @return the value
+	 * @throws IllegalArgumentException if the value is not a number from 0 to 1
+	 */
+	private double getRate(String name)
+	{
+		double value;
+		try
+		{
+			value = Double.parseDouble(get(name));
+		}
+		catch (NumberFormatException e)
+		{
+			value = Double.NaN;
+		}
+		if (!(value >= 0 && value <= 1))
+			throw new IllegalArgumentException(name + " must be a number from 0 to 1: " + get(name));
+		return value;
+	}
+
+	/**
+	 * Returns the value of a setting that is true or false
+	 * @param name the name of the setting
+	 * @return the value
+	 * @throws IllegalArgumentException if the value is neither true nor false
+	 */
+	private boolean getBoolean(String name)
+	{
+		String value = get(name);
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+			return Boolean.parseBoolean(value);
+		throw new IllegalArgumentException(name + " must be true or false: " + value);
+	}
+
+	/**
+	 * Returns the engine setting
+	 * @return the engine
+	 * @throws IllegalArgumentException if the value is not the name of an engine
+	 */
+	private Simulation.Engine getEngine()
+	{
+		try
+		{
+			return Simulation.Engine.valueOf(get("engine").toUpperCase());
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IllegalArgumentException("engine must be one of " + Arrays.toString(Simulation.Engine.values())
+				+ ": " + get("engine"));
+		}
+	}
+
+	/**
+	 * Returns the file named by a setting, with "{task}" replaced by the task number
+	 * @param name the name of the setting
+	 * @return the file, or null if the setting is empty
+	 */
+	private File getFile(String name)
+	{
+		String path = get(name);
+		return path.isEmpty() ? null : new File(path.replace("{task}", get("task")));
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * Palette.java
+ *
+ * Holds every color used to draw the simulation, created once
+ * up front so that drawing a frame never has to allocate a new
+ * Color. Dead people fade out, so their colors are kept for
+ * every one of the 256 alpha values.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.Color;
+
+public class Palette
+{
+	/** The colors of the background graph */
+	public static final Color GRAPH_CURED = new Color(170, 250, 200), GRAPH_INFECTED = new Color(250, 170, 170),
+		GRAPH_DEAD = new Color(245, 236, 176);
+
+	/** The colors of the restart and end buttons */
+	public static final Color RESTART_FILL = new Color(160, 255, 160), RESTART_TEXT = new Color(40, 130, 40),
+		END_FILL = new Color(255, 160, 160), END_TEXT = new Color(130, 40, 40);
+
+	/** The fill color of a dead person, indexed by alpha */
+	public static final Color[] DEAD_FILL = withAlphas(240, 215, 50);
+
+	/** The outline color of a person, indexed by alpha */
+	public static final Color[] OUTLINE = withAlphas(0, 0, 0);
+
+	/** The color of the X drawn over a dead person, indexed by alpha */
+	public static final Color[] DEAD_MARK = withAlphas(255, 0, 0);
+
+	// the palette only holds constants
+	private Palette() { }
+
+	/**
+	 * Creates a color with every possible alpha value
+	 * @param red the red component (0 to 255)
+	 * @param green the green component (0 to 255)
+	 * @param blue the blue component (0 to 255)
+	 * @return the colors, indexed by alpha
+	 */
+	private static Color[] withAlphas(int red, int green, int blue)
+	{
+		Color[] colors = new Color[256];
+		for (int alpha = 0; alpha < colors.length; alpha++)
+			colors[alpha] = new Color(red, green, blue, alpha);
+		return colors;
+	}
+}
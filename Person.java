@@ -13,31 +13,87 @@
  * @since 3/28/2020
  */
 
-import java.awt.Color;
+import java.nio.ByteBuffer;
 
 public class Person
 {
-	private double x, y, dx, dy, radius, infectRate;
+	private double x, y, prevX, prevY, dx, dy, radius, infectRate;
 	private int viralState;     //  0 uninfected, 1 infected, 2 recovered, 3 dead
-	private int daysSick, alpha;
+	private int id, daysSick, alpha;
 	private boolean shelterInPlace, willDie;
 	private Person lastCollided;
 	private Wall lastCollidedWall;
+	private Rng rng;
+
+	/** What checkCollision() returns: no contact, a contact, this person infected by the other, or the other infected by this person */
+	public static final int NO_CONTACT = 0, CONTACT = 1, INFECTED = 2, INFECTED_OTHER = 3;
+
+	/** The number of bytes that write() uses for each person */
+	public static final int BYTES = 4 + 8 * 8 + 3 * 4 + 2 + 4;
 	
 	/**
 	 * Initializes a Person object.
+	 * @param id the number of the person, unique within the simulation
 	 * @param viralState the initial viral state of the person
 	 * @param infectRate the probability of infecting another person
 	 * @param shelterInPlaceRate the rate of people who are sheltering-in-place
 	 * @param deathRate the rate of infected people who die from the virus
+	 * @param rng the simulation's random number generator
+	 */
+	public Person (int id, int viralState, double infectRate, double shelterInPlaceRate, double deathRate, Rng rng)
+	{
+		this.rng = rng;
+		reset(id, viralState, infectRate, shelterInPlaceRate, deathRate);
+	}
+
+	/**
+	 * Initializes a Person object from a checkpoint written by write(); the
+	 * person they last collided with is not read, and must be set afterwards
+	 * @param in the checkpoint, positioned at the start of the person
+	 * @param walls the walls of the simulation, in the order they were written
+	 * @param rng the simulation's random number generator
 	 */
-	public Person (int viralState, double infectRate, double shelterInPlaceRate, double deathRate)
+	public Person (ByteBuffer in, Wall[] walls, Rng rng)
 	{
+		this.rng = rng;
+		id = in.getInt();
+		x = in.getDouble();
+		y = in.getDouble();
+		prevX = in.getDouble();
+		prevY = in.getDouble();
+		dx = in.getDouble();
+		dy = in.getDouble();
+		radius = in.getDouble();
+		infectRate = in.getDouble();
+		viralState = in.getInt();
+		daysSick = in.getInt();
+		alpha = in.getInt();
+		shelterInPlace = in.get() != 0;
+		willDie = in.get() != 0;
+		int wall = in.getInt();
+		lastCollidedWall = wall < 0 ? null : walls[wall];
+	}
+
+	/**
+	 * Starts the person over as if they had just been created with the given
+	 * parameters, drawing from the random number generator in the same order
+	 * as the constructor (so that a reused person is placed exactly as a new one)
+	 * @param id the number of the person, unique within the simulation
+	 * @param viralState the initial viral state of the person
+	 * @param infectRate the probability of infecting another person
+	 * @param shelterInPlaceRate the rate of people who are sheltering-in-place
+	 * @param deathRate the rate of infected people who die from the virus
+	 */
+	public void reset(int id, int viralState, double infectRate, double shelterInPlaceRate, double deathRate)
+	{
+		this.id = id;
 		radius = 0.2;
-		x = Math.random() * (20.0 - 2 * radius) - (10.0 - radius);
-		y = Math.random() * (20.0 - 2 * radius) - (10.0 - radius);
-		dx = Math.random() * radius - radius / 2;
-		dy = Math.random() * radius - radius / 2;
+		x = rng.nextDouble() * (20.0 - 2 * radius) - (10.0 - radius);
+		y = rng.nextDouble() * (20.0 - 2 * radius) - (10.0 - radius);
+		dx = rng.nextDouble() * radius - radius / 2;
+		dy = rng.nextDouble() * radius - radius / 2;
+		prevX = x;
+		prevY = y;
 		this.viralState = viralState;
 		daysSick = 0;
 		this.shelterInPlace = ratePasses(shelterInPlaceRate);
@@ -48,6 +104,50 @@ public class Person
 		alpha = 255;
 	}
 
+	/**
+	 * Writes the person to a checkpoint (except who they last collided with)
+	 * @param out where to write the person
+	 * @param walls the walls of the simulation, in the order they are written
+	 */
+	public void write(ByteBuffer out, Wall[] walls)
+	{
+		out.putInt(id).putDouble(x).putDouble(y).putDouble(prevX).putDouble(prevY).putDouble(dx).putDouble(dy)
+			.putDouble(radius).putDouble(infectRate).putInt(viralState).putInt(daysSick).putInt(alpha)
+			.put((byte)(shelterInPlace ? 1 : 0)).put((byte)(willDie ? 1 : 0));
+		int wall = -1;
+		for (int i = 0; i < walls.length && wall < 0; i++)
+			if (walls[i] == lastCollidedWall)
+				wall = i;
+		out.putInt(wall);
+	}
+
+	/**
+	 * Returns the number of the person, unique within the simulation
+	 * @return the id
+	 */
+	public int getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Returns the person that this person last collided with
+	 * @return the last person collided with, or null
+	 */
+	public Person getLastCollided()
+	{
+		return lastCollided;
+	}
+
+	/**
+	 * Sets the person that this person last collided with
+	 * @param lastCollided the last person collided with, or null
+	 */
+	public void setLastCollided(Person lastCollided)
+	{
+		this.lastCollided = lastCollided;
+	}
+
 	/**
 	 * Updates the lastCollidedWall variable, which stores the
 	 * wall that the person last collided with
@@ -101,6 +201,24 @@ public class Person
 		return y;
 	}
 
+	/**
+	 * Returns the x position before the last change in position
+	 * @return the previous x position
+	 */
+	public double getPrevX()
+	{
+		return prevX;
+	}
+
+	/**
+	 * Returns the y position before the last change in position
+	 * @return the previous y position
+	 */
+	public double getPrevY()
+	{
+		return prevY;
+	}
+
 	/**
 	 * Returns the horizontal component of velocity
 	 * @return the horizontal component of velocity
@@ -134,9 +252,9 @@ public class Person
 	 * @param rate the rate/probability
 	 * @return true or false based on probability
 	 */
-	private static boolean ratePasses(double rate)
+	private boolean ratePasses(double rate)
 	{
-		return (int)(Math.random() * 100) < (int)(rate * 100);
+		return (int)(rng.nextDouble() * 100) < (int)(rate * 100);
 	}
 
 	/**
@@ -147,6 +265,8 @@ public class Person
 	{
 		if (lastCollided != null && !collidesWith(lastCollided))
 			lastCollided = null;
+		prevX = x;
+		prevY = y;
 		if (shelterInPlace)
 			return;
 		if (Math.abs(x + dx) > 10.0 - radius)
@@ -180,7 +300,7 @@ public class Person
 	private void setCollisionWithShelterInPlace(Person shelterer)
 	{
 		double theta = Math.atan2(y - shelterer.y, x - shelterer.x), speed = Math.sqrt(dx * dx + dy * dy);
-		theta += Math.random() * Math.PI / 8 - Math.PI / 16;
+		theta += rng.nextDouble() * Math.PI / 8 - Math.PI / 16;
 		dx = speed * Math.cos(theta);
 		dy = speed * Math.sin(theta);
 	}
@@ -199,11 +319,13 @@ public class Person
 	 * Checks if the current person collides with the given person and updates
 	 * the velocities of both people if they are colliding
 	 * @param other the person to check collision with
+	 * @return NO_CONTACT, CONTACT, INFECTED (this person caught the virus from the
+	 *         other), or INFECTED_OTHER (the other person caught it from this one)
 	 */
-	public void checkCollision(Person other)
+	public int checkCollision(Person other)
 	{
 		if (other == lastCollided || !collidesWith(other))
-			return;
+			return NO_CONTACT;
 		if (shelterInPlace)
 			other.setCollisionWithShelterInPlace(this);
 		else if (other.shelterInPlace)
@@ -216,12 +338,20 @@ public class Person
 			dx = tempdx;
 			dy = tempdy;
 		}
+		int contact = CONTACT;
 		if (other.viralState == 1 && viralState == 0 && ratePasses(infectRate))
+		{
 			viralState = other.viralState;
+			contact = INFECTED;
+		}
 		else if (viralState == 1 && other.viralState == 0 && ratePasses(infectRate))
+		{
 			other.viralState = viralState;
+			contact = INFECTED_OTHER;
+		}
 		lastCollided = other;
 		other.lastCollided = this;
+		return contact;
 	}
 
 	/**
@@ -234,11 +364,55 @@ public class Person
 	}
 	
 	/**
-	 * Draws the person, using a ball to represent the person
+	 * Determines if the person is dead and still fading out
+	 * @return whether or not the person is fading
+	 */
+	public boolean isFading()
+	{
+		return viralState == 3 && alpha > 100;
+	}
+
+	/**
+	 * Fades a dead person by one step, stopping once they are
+	 * partially transparent. Dead people no longer move, so this
+	 * also settles their previous position for interpolation.
+	 */
+	public void fade()
+	{
+		prevX = x;
+		prevY = y;
+		if (isFading())
+			alpha--;
+	}
+
+	/**
+	 * Returns the opacity that the person is drawn with
+	 * @return the alpha value (0 to 255)
+	 */
+	public int getAlpha()
+	{
+		return alpha;
+	}
+
+	/**
+	 * Draws the person at their current position
+	 */
+	public void draw ()
+	{
+		draw(x, y, radius, viralState, alpha);
+	}
+
+	/**
+	 * Draws a person, using a ball to represent the person
 	 * and different colors to show the viral state (black - uninfected,
 	 * red - infected, green - cured, yellow with a red X - dead)
+	 * @param x the x position to draw the person at
+	 * @param y the y position to draw the person at
+	 * @param radius the radius of the person
+	 * @param viralState the viral state of the person
+	 * @param alpha the opacity of the person (0 to 255)
 	 */
-	public void draw ()
+	public static void draw (double x, double y, double radius, int viralState, int alpha)
 	{
 		StdDraw.setPenColor(StdDraw.BLACK);
 		if(viralState == 1)
@@ -246,20 +420,18 @@ public class Person
 		else if(viralState == 2)
 			StdDraw.setPenColor(StdDraw.GREEN);
 		else if (viralState == 3)
-			StdDraw.setPenColor(new Color(240, 215, 50, alpha));
+			StdDraw.setPenColor(Palette.DEAD_FILL[alpha]);
 		
 		StdDraw.filledCircle(x, y, radius);
-		StdDraw.setPenColor(new Color(0, 0, 0, alpha));
+		StdDraw.setPenColor(Palette.OUTLINE[alpha]);
 		StdDraw.circle(x, y, radius);
 		
 		if (viralState != 3)
 			return;
-		StdDraw.setPenColor(new Color(255, 0, 0, alpha));
+		StdDraw.setPenColor(Palette.DEAD_MARK[alpha]);
 		StdDraw.setPenRadius(.004);
 		StdDraw.line(x - radius, y - radius, x + radius, y + radius);
 		StdDraw.line(x + radius, y - radius, x - radius, y + radius);
-		if (alpha > 100)
-			alpha--;
 		StdDraw.setPenRadius();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+/**
+ * QuantileSketch.java
+ *
+ * Estimates one quantile (eg. the median) of a stream of values
+ * without keeping them, using the P-squared algorithm of Jain and
+ * Chlamtac. Five markers track the smallest value, the largest
+ * value, the quantile, and two points halfway to it on either
+ * side; each new value moves the markers' positions, and a marker
+ * that drifts from where it should be is nudged back, adjusting
+ * its height along a parabola through its neighbours. Adding a
+ * value takes constant time and memory. Until five values have
+ * been added the quantile is exact.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.Arrays;
+
+public class QuantileSketch
+{
+	private final double quantile;
+	private final double[] heights, positions, desired, increments;
+	private long count;
+
+	/**
+	 * Instantiates an empty QuantileSketch object
+	 * @param quantile the quantile to estimate (between 0 and 1, eg. 0.5 for the median)
+	 */
+	public QuantileSketch(double quantile)
+	{
+		if (!(quantile >= 0 && quantile <= 1))
+			throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+		this.quantile = quantile;
+		heights = new double[5];
+		positions = new double[] {0, 1, 2, 3, 4};
+		desired = new double[] {0, 2 * quantile, 4 * quantile, 2 + 2 * quantile, 4};
+		increments = new double[] {0, quantile / 2, quantile, (1 + quantile) / 2, 1};
+	}
+
+	/**
+	 * Returns the quantile being estimated
+	 * @return the quantile (between 0 and 1)
+	 */
+	public double getQuantile()
+	{
+		return quantile;
+	}
+
+	/**
+	 * Returns the number of values added
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Adds a value
+	 * @param value the value
+	 */
+	public void add(double value)
+	{
+		if (count < 5)
+		{
+			heights[(int)count++] = value;
+			if (count == 5)
+				Arrays.sort(heights);
+			return;
+		}
+		count++;
+
+		// find the cell the value falls in, stretching the ends to hold it
+		int cell;
+		if (value < heights[0])
+		{
+			heights[0] = value;
+			cell = 0;
+		}
+		else if (value >= heights[4])
+		{
+			heights[4] = value;
+			cell = 3;
+		}
+		else
+		{
+			cell = 0;
+			while (value >= heights[cell + 1])
+				cell++;
+		}
+		for (int i = cell + 1; i < 5; i++)
+			positions[i]++;
+		for (int i = 0; i < 5; i++)
+			desired[i] += increments[i];
+
+		for (int i = 1; i <= 3; i++)
+		{
+			double off = desired[i] - positions[i];
+			if (off >= 1 && positions[i + 1] - positions[i] > 1 || off <= -1 && positions[i - 1] - positions[i] < -1)
+			{
+				int step = off > 0 ? 1 : -1;
+				double height = parabolic(i, step);
+				if (height <= heights[i - 1] || height >= heights[i + 1])
+					height = heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+				heights[i] = height;
+				positions[i] += step;
+			}
+		}
+	}
+
+	/**
+	 * Returns the height that a marker would have if moved one position,
+	 * on the parabola through it and its neighbours
+	 * @param i the marker (1 to 3)
+	 * @param step the direction it moves (1 or -1)
+	 * @return the new height
+	 */
+	private double parabolic(int i, int step)
+	{
+		double below = positions[i] - positions[i - 1], above = positions[i + 1] - positions[i];
+		return heights[i] + step / (positions[i + 1] - positions[i - 1])
+			* ((below + step) * (heights[i + 1] - heights[i]) / above + (above - step) * (heights[i] - heights[i - 1]) / below);
+	}
+
+	/**
+	 * Returns the estimate of the quantile
+	 * @return the estimate, or NaN if no values were added
+	 */
+	public double get()
+	{
+		if (count == 0)
+			return Double.NaN;
+		if (count < 5)
+		{
+			double[] sorted = Arrays.copyOf(heights, (int)count);
+			Arrays.sort(sorted);
+			return sorted[(int)Math.min(count - 1, Math.round(quantile * (count - 1)))];
+		}
+		return heights[2];
+	}
+}
@@ -0,0 +1,385 @@
+/**
+ * Renderer.java
+ *
+ * Draws snapshots of the simulation: the background graph,
+ * the walls, every person, the restart/end buttons, and the
+ * frame rate display. Things that stop changing (the walls
+ * and the dead who have finished fading) are cached in a
+ * static layer when people are drawn with sprites. Above a
+ * configurable number of people, the population is drawn as
+ * a density map instead of one ball per person, and so is a
+ * population that is zoomed out too far to see each person.
+ * Only the people inside the viewport are in the snapshot
+ * when zoomed in, so drawing costs only what is visible. The
+ * renderer can either be called directly from the simulation
+ * loop, or run on its own thread, where it repeatedly draws
+ * the latest snapshot published through a TripleBuffer so
+ * that drawing never stalls the physics. Finished frames can
+ * also be handed to a FrameRecorder to be written to disk.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.Font;
+
+public class Renderer implements Runnable
+{
+	/** The default number of people above which a density map is drawn instead of each person */
+	public static final int DENSITY_THRESHOLD = 20000;
+
+	/** The smallest radius (in pixels) that people are drawn at one by one; below it, a density map is drawn */
+	public static final double MIN_PIXEL_RADIUS = 1.0;
+
+	/** The fonts used for button text and for the frame rate display */
+	public static final Font TEXT_FONT = new Font("SansSerif", Font.BOLD, 30), STATUS_FONT = new Font("SansSerif", Font.PLAIN, 12);
+
+	private final TripleBuffer<Snapshot> buffer;
+	private final int slices;
+	private final FrameScheduler scheduler;
+	private final SpriteRenderer sprites;
+	private final DensityRenderer density;
+	private final AllocationCounter allocations;
+	private GraphLayer graph;
+	private final StaticLayer layer;
+	private volatile long graphColumns;
+	private volatile int bakedDead, densityThreshold;
+	private volatile boolean running, showFrameRate, drawSprites;
+	private volatile FrameRecorder recorder;
+	private volatile TickProfiler profiler;
+	private final LatencyHistogram frameLatency;
+	private Thread thread;
+	private long lastTick;
+
+	/**
+	 * Instantiates a Renderer object
+	 * @param buffer the buffer that snapshots are published to
+	 * @param slices the number of slices shown in the background graph
+	 * @param framesPerSecond the target frame rate
+	 */
+	public Renderer(TripleBuffer<Snapshot> buffer, int slices, int framesPerSecond)
+	{
+		this.buffer = buffer;
+		this.slices = slices;
+		layer = new StaticLayer();
+		scheduler = new FrameScheduler(framesPerSecond);
+		sprites = new SpriteRenderer();
+		density = new DensityRenderer(2, 16);
+		densityThreshold = DENSITY_THRESHOLD;
+		allocations = new AllocationCounter();
+		frameLatency = new LatencyHistogram();
+		drawSprites = true;
+	}
+
+	/**
+	 * Returns the scheduler pacing the frames, which measures the achieved
+	 * frame rate and tick rate
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getScheduler()
+	{
+		return scheduler;
+	}
+
+	/**
+	 * Returns the number of slices of history that have been drawn into the
+	 * background graph, so that snapshots only need to carry newer slices
+	 * @return the number of slices drawn so far
+	 */
+	public long getGraphColumns()
+	{
+		return graphColumns;
+	}
+
+	/**
+	 * Returns the number of dead people (from the start of the list of the
+	 * dead) that are cached in the static layer, so that snapshots only need
+	 * to carry the dead after them
+	 * @return the number of dead people cached
+	 */
+	public int getBakedDead()
+	{
+		return bakedDead;
+	}
+
+	/**
+	 * Returns the number of bytes allocated while drawing the last frame
+	 * (not counting the frame rate display or copying the frame to the
+	 * screen). When people are drawn with sprites, this should read zero
+	 * once the simulation has warmed up.
+	 * @return the number of bytes, or -1 if this cannot be measured
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocations.getAllocated();
+	}
+
+	/**
+	 * Turns the frame rate display on or off
+	 * @param showFrameRate whether or not to show the frame rate
+	 */
+	public void setShowFrameRate(boolean showFrameRate)
+	{
+		this.showFrameRate = showFrameRate;
+	}
+
+	/**
+	 * Returns whether or not the frame rate is displayed
+	 * @return whether or not the frame rate is shown
+	 */
+	public boolean isShowingFrameRate()
+	{
+		return showFrameRate;
+	}
+
+	/**
+	 * Chooses whether people are drawn by copying sprites directly into the
+	 * canvas's pixels, or through StdDraw one circle at a time
+	 * @param drawSprites whether or not to draw people using sprites
+	 */
+	public void setDrawSprites(boolean drawSprites)
+	{
+		this.drawSprites = drawSprites;
+	}
+
+	/**
+	 * Returns whether or not people are drawn using sprites
+	 * @return whether or not sprites are used
+	 */
+	public boolean isDrawingSprites()
+	{
+		return drawSprites;
+	}
+
+	/**
+	 * Sets the number of people above which the population is drawn as a
+	 * density map (counts of each viral state per tile of pixels) instead of
+	 * one ball per person
+	 * @param densityThreshold the number of people, counting the dead
+	 */
+	public void setDensityThreshold(int densityThreshold)
+	{
+		this.densityThreshold = Math.max(0, densityThreshold);
+	}
+
+	/**
+	 * Returns the number of people above which a density map is drawn
+	 * @return the number of people, counting the dead
+	 */
+	public int getDensityThreshold()
+	{
+		return densityThreshold;
+	}
+
+	/**
+	 * Starts or stops recording frames: each finished frame (without the
+	 * frame rate display) is handed to the given recorder
+	 * @param recorder the recorder, which must already be started, or null to stop recording
+	 */
+	public void setRecorder(FrameRecorder recorder)
+	{
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Returns the recorder that frames are handed to
+	 * @return the recorder, or null if frames are not being recorded
+	 */
+	public FrameRecorder getRecorder()
+	{
+		return recorder;
+	}
+
+	/**
+	 * Copies how long each frame has taken to draw and show. Frames are
+	 * recorded under the same lock, so this may be called from any thread
+	 * while the render thread is running
+	 * @param copy the histogram to copy the frame latencies into
+	 */
+	public void copyFrameLatency(LatencyHistogram copy)
+	{
+		synchronized (frameLatency)
+		{
+			copy.copyFrom(frameLatency);
+		}
+	}
+
+	/**
+	 * Sets the profiler that the time spent drawing and showing each frame is added to
+	 * @param profiler the profiler, or null to not time frames
+	 */
+	public void setProfiler(TickProfiler profiler)
+	{
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Erases the background graph, so that it is redrawn from the first slice
+	 * of history in the next snapshot (eg. after jumping to another tick of a
+	 * replay). This must not be called while the render thread is running
+	 */
+	public void clearGraph()
+	{
+		if (graph != null)
+			graph.clear();
+		graphColumns = 0;
+	}
+
+	/**
+	 * Forgets everything kept from the run being drawn (the graph, the dead
+	 * cached in the static layer, and the frame latencies), so that a
+	 * simulation that started over is drawn from scratch. This must not be
+	 * called while the render thread is running
+	 */
+	public void reset()
+	{
+		clearGraph();
+		layer.clear();
+		bakedDead = 0;
+		lastTick = 0;
+		synchronized (frameLatency)
+		{
+			frameLatency.reset();
+		}
+	}
+
+	/**
+	 * Starts drawing the latest snapshot on a separate render thread
+	 */
+	public void start()
+	{
+		running = true;
+		thread = new Thread(this, "renderer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the render thread, if it is running, and waits for it to finish
+	 */
+	public void stop()
+	{
+		running = false;
+		if (thread == null)
+			return;
+		try
+		{
+			thread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	/**
+	 * Draws the latest snapshot at the target frame rate until stopped
+	 */
+	public void run()
+	{
+		while (running)
+		{
+			long frameStart = scheduler.beginFrame();
+			Snapshot snapshot = buffer.acquire();
+			scheduler.endCompute((int)(snapshot.getTick() - lastTick));
+			lastTick = snapshot.getTick();
+			render(snapshot, snapshot.getInterpolation(frameStart));
+			scheduler.endRender(true);
+			scheduler.sync(true);
+		}
+	}
+
+	/**
+	 * Draws the given snapshot of the simulation
+	 * @param snapshot the snapshot to draw
+	 * @param interpolation how far between the previous and the current tick to draw people (0 to 1)
+	 */
+	public void render(Snapshot snapshot, double interpolation)
+	{
+		long start = System.nanoTime();
+		allocations.start();
+		if (graph == null)
+			graph = new GraphLayer(slices, StdDraw.getCanvasHeight());
+		graph.update(snapshot);
+		graphColumns = graph.getColumns();
+		StdDraw.picture(graph.getImage());
+
+		boolean culled = !snapshot.getViewport().showsWholeWorld();
+		if (snapshot.getDeadStart() + snapshot.size() > densityThreshold
+			|| (snapshot.size() > 0 && StdDraw.toScreenLength(snapshot.getRadius(0)) < MIN_PIXEL_RADIUS))
+		{
+			// every dead person is counted in the density map, so none can be cached
+			layer.updateWalls(snapshot, false);
+			bakedDead = 0;
+			StdDraw.picture(layer.getImage());
+			density.draw(snapshot, interpolation, 0, snapshot.size());
+		}
+		else if (drawSprites && culled)
+		{
+			// the snapshot only holds the dead inside the viewport, so none can be cached
+			layer.updateWalls(snapshot, false);
+			bakedDead = 0;
+			StdDraw.picture(layer.getImage());
+			sprites.draw(snapshot, interpolation);
+		}
+		else if (drawSprites)
+		{
+			int first = layer.update(snapshot, sprites);
+			bakedDead = layer.getBaked();
+			StdDraw.picture(layer.getImage());
+			sprites.draw(snapshot, interpolation, first, snapshot.size(), StdDraw.getPixels(),
+				StdDraw.getCanvasWidth(), StdDraw.getCanvasHeight());
+		}
+		else
+		{
+			// without the cache, snapshots have to carry every dead person again
+			bakedDead = 0;
+			if (snapshot.getWalls() != null)
+				for (Wall curr : snapshot.getWalls())
+					curr.draw(snapshot.getViewport());
+			for (int i = 0; i < snapshot.size(); i++)
+				Person.draw(snapshot.getX(i, interpolation), snapshot.getY(i, interpolation), snapshot.getRadius(i),
+					snapshot.getViralState(i), snapshot.getAlpha(i));
+		}
+
+		if (snapshot.allowsRestart())
+		{
+			StdDraw.setPenColor(Palette.RESTART_FILL);
+			StdDraw.filledRectangle(-5.0, 0.0, 2.0, 1.0);
+			StdDraw.setPenColor(Palette.RESTART_TEXT);
+			StdDraw.text(-5.0, 0.0, "Restart");
+			StdDraw.setPenColor(Palette.END_FILL);
+			StdDraw.filledRectangle(5.0, 0.0, 2.0, 1.0);
+			StdDraw.setPenColor(Palette.END_TEXT);
+			StdDraw.text(5.0, 0.0, "End");
+		}
+		allocations.stop();
+		FrameRecorder recorder = this.recorder;
+		if (recorder != null)
+			recorder.capture();
+		if (showFrameRate)
+		{
+			StdDraw.setFont(STATUS_FONT);
+			StdDraw.setPenColor(StdDraw.BLACK);
+			StdDraw.textLeft(-9.8, 9.5, String.format("%.0f fps, %.0f ticks/s (compute %.1f ms, render %.1f ms, %d bytes allocated)",
+				scheduler.getFps(), scheduler.getTickRate(), scheduler.getComputeMillis(), scheduler.getRenderMillis(),
+				allocations.getAllocated()));
+			if (!Double.isNaN(snapshot.getReproduction()))
+				StdDraw.textLeft(-9.8, 9.1, String.format("R(t) %.2f, generation interval %.0f ticks",
+					snapshot.getReproduction(), snapshot.getGenerationInterval()));
+			StdDraw.setFont(TEXT_FONT);
+		}
+
+		long present = System.nanoTime();
+		StdDraw.show();
+		TickProfiler profiler = this.profiler;
+		long end = System.nanoTime();
+		synchronized (frameLatency)
+		{
+			frameLatency.record(end - start);
+		}
+		if (profiler != null)
+			profiler.addFrame(present - start, end - present);
+	}
+}
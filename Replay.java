@@ -0,0 +1,172 @@
+/**
+ * Replay.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java Replay <trajectory file>".
+ *
+ * Plays back a run recorded by TrajectoryWriter, drawing it with
+ * the same renderer as a live simulation but without running any
+ * physics. Playback can be paused, sped up, slowed down, and moved
+ * to any tick; moving decodes at most one keyframe interval of
+ * frames, plus the counts needed to redraw the background graph.
+ * Keys: space pauses, '+' and '-' double and halve the speed,
+ * ',' and '.' step one tick while paused, '[' and ']' jump a tenth
+ * of the run back or forward, '0' to '9' jump to that tenth of
+ * the run, and 'f' toggles the frame rate display.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+public class Replay
+{
+	/** The number of slices shown in the background graph */
+	private static final int SLICES = 1000;
+
+	private final TrajectoryReader reader;
+	private final TripleBuffer<Snapshot> snapshots;
+	private final Renderer renderer;
+	private final Viewport viewport;
+	private History history;
+	private int ticksPerFrame = 1;
+	private boolean paused;
+
+	/**
+	 * Instantiates a Replay object
+	 * @param file the trajectory file to play
+	 * @param framesPerSecond the number of frames drawn per second
+	 * @throws IOException if the file cannot be read
+	 */
+	public Replay(File file, int framesPerSecond) throws IOException
+	{
+		reader = new TrajectoryReader(file);
+		snapshots = new TripleBuffer<Snapshot>(new Snapshot(SLICES), new Snapshot(SLICES), new Snapshot(SLICES));
+		renderer = new Renderer(snapshots, SLICES, framesPerSecond);
+		viewport = new Viewport();
+		history = new History(SLICES);
+		reader.readCounts(reader.getFirstTick(), reader.getFirstTick(), history);
+	}
+
+	/**
+	 * Plays the recording until the window is closed
+	 */
+	public void run()
+	{
+		StdDraw.setCanvasSize(600,600);
+		StdDraw.setXscale(-10.0, 10.0);
+		StdDraw.setYscale(-10.0, 10.0);
+		StdDraw.enableDoubleBuffering();
+		StdDraw.setFont(Renderer.TEXT_FONT);
+		FrameScheduler scheduler = renderer.getScheduler();
+		while (true)
+		{
+			scheduler.beginFrame();
+			handleKeys();
+			int ticks = 0;
+			for (; !paused && ticks < ticksPerFrame && reader.next(); ticks++)
+				addCounts();
+			publishSnapshot();
+			scheduler.endCompute(ticks);
+			renderer.render(snapshots.acquire(), 1.0);
+			scheduler.endRender(true);
+			scheduler.sync(true);
+		}
+	}
+
+	/**
+	 * Handles the keys that control playback
+	 */
+	private void handleKeys()
+	{
+		long first = reader.getFirstTick(), length = reader.getLastTick() - first;
+		while (StdDraw.hasNextKeyTyped())
+		{
+			char key = StdDraw.nextKeyTyped();
+			if (key == ' ')
+				paused = !paused;
+			else if (key == '+' || key == '=')
+				ticksPerFrame = Math.min(ticksPerFrame * 2, 1024);
+			else if (key == '-')
+				ticksPerFrame = Math.max(ticksPerFrame / 2, 1);
+			else if (key == '.' && paused && reader.next())
+				addCounts();
+			else if (key == ',' && paused)
+				seek(reader.getTick() - 1);
+			else if (key == '[')
+				seek(reader.getTick() - length / 10);
+			else if (key == ']')
+				seek(reader.getTick() + length / 10);
+			else if (key >= '0' && key <= '9')
+				seek(first + length * (key - '0') / 10);
+			else if (key == 'f')
+				renderer.setShowFrameRate(!renderer.isShowingFrameRate());
+		}
+	}
+
+	/**
+	 * Moves to the given tick and rebuilds the background graph up to it
+	 * @param tick the tick to move to (clamped to the recording)
+	 */
+	private void seek(long tick)
+	{
+		tick = Math.max(reader.getFirstTick(), Math.min(reader.getLastTick(), tick));
+		history = new History(SLICES);
+		reader.readCounts(Math.max(reader.getFirstTick(), tick - SLICES + 1), tick, history);
+		renderer.clearGraph();
+	}
+
+	/**
+	 * Adds the counts at the reader's current tick to the history
+	 */
+	private void addCounts()
+	{
+		double total = Math.max(1, reader.getCount(0) + reader.getCount(1) + reader.getCount(2) + reader.getCount(3));
+		history.add(reader.getCount(0) / total, reader.getCount(1) / total, reader.getCount(2) / total,
+			reader.getCount(3) / total);
+	}
+
+	/**
+	 * Copies the reader's current tick into a snapshot and publishes it
+	 */
+	private void publishSnapshot()
+	{
+		Snapshot snapshot = snapshots.getBack();
+		snapshot.clear(reader.getTick(), false);
+		snapshot.setWalls(reader.getWalls());
+		snapshot.setViewport(viewport);
+		snapshot.markDead(0, 0);
+		double radius = reader.getRadius();
+		for (int id = 0; id < reader.getPeople(); id++)
+		{
+			double x = reader.getX(id), y = reader.getY(id);
+			snapshot.add(x, y, x, y, radius, reader.getViralState(id), reader.getAlpha(id));
+		}
+		snapshot.setHistory(history, renderer.getGraphColumns());
+		snapshot.setTiming(System.nanoTime(), 0);
+		snapshots.publish();
+	}
+
+	/**
+	 * Plays the trajectory file named on the command line
+	 * @param args the name of the trajectory file
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: java Replay <trajectory file>");
+			return;
+		}
+		try
+		{
+			new Replay(new File(args[0]), 50).run();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Cannot play " + args[0] + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Rng.java
+ *
+ * A small, fast random number generator (SplitMix64) whose whole
+ * state is a single long that can be read and set. Every random
+ * choice in a simulation goes through one of these, so a run can
+ * be repeated exactly from its seed, or saved and resumed exactly
+ * from its state.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+public class Rng
+{
+	private long state;
+
+	/**
+	 * Instantiates an Rng object with the given seed
+	 * @param seed the seed
+	 */
+	public Rng(long seed)
+	{
+		state = seed;
+	}
+
+	/**
+	 * Instantiates an Rng object with a seed that is different every time
+	 */
+	public Rng()
+	{
+		this(System.nanoTime() ^ Double.doubleToLongBits(Math.random()));
+	}
+
+	/**
+	 * Returns the whole state of the generator
+	 * @return the state
+	 */
+	public long getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Sets the whole state of the generator, so that it continues
+	 * exactly where the generator it was read from left off
+	 * @param state the state
+	 */
+	public void setState(long state)
+	{
+		this.state = state;
+	}
+
+	/**
+	 * Returns the next random long (all values equally likely)
+	 * @return the random long
+	 */
+	public long nextLong()
+	{
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns the next random double from 0 (inclusive) to 1 (exclusive)
+	 * @return the random double
+	 */
+	public double nextDouble()
+	{
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+}
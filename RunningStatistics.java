@@ -0,0 +1,205 @@
+/**
+ * RunningStatistics.java
+ *
+ * Summarizes a stream of values (such as the fraction of people
+ * who died in each replica) without keeping them: the mean and
+ * variance are updated with Welford's method, which does not lose
+ * precision the way summing squares does, and a QuantileSketch
+ * estimates each of a few quantiles. From these it gives a
+ * confidence interval for the mean, using Student's t
+ * distribution, so a batch of replicas can stop as soon as the
+ * interval is narrow enough instead of running a fixed number.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+public class RunningStatistics
+{
+	/** The quantiles estimated when none are given */
+	public static final double[] QUANTILES = {0.05, 0.5, 0.95};
+
+	/** The confidence level used when none is given */
+	public static final double CONFIDENCE = 0.95;
+
+	private final QuantileSketch[] sketches;
+	private long count;
+	private double mean, squares, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Instantiates an empty RunningStatistics object
+	 * @param quantiles the quantiles to estimate (each between 0 and 1)
+	 */
+	public RunningStatistics(double... quantiles)
+	{
+		sketches = new QuantileSketch[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++)
+			sketches[i] = new QuantileSketch(quantiles[i]);
+	}
+
+	/**
+	 * Instantiates an empty RunningStatistics object estimating the 5th, 50th, and 95th percentiles
+	 */
+	public RunningStatistics()
+	{
+		this(QUANTILES);
+	}
+
+	/**
+	 * Adds a value
+	 * @param value the value
+	 */
+	public void add(double value)
+	{
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		squares += delta * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		for (QuantileSketch sketch : sketches)
+			sketch.add(value);
+	}
+
+	/**
+	 * Returns the number of values added
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the average of the values
+	 * @return the mean, or NaN if no values were added
+	 */
+	public double getMean()
+	{
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Returns the sample variance of the values
+	 * @return the variance, or NaN if fewer than two values were added
+	 */
+	public double getVariance()
+	{
+		return count < 2 ? Double.NaN : squares / (count - 1);
+	}
+
+	/**
+	 * Returns the sample standard deviation of the values
+	 * @return the standard deviation, or NaN if fewer than two values were added
+	 */
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the smallest value
+	 * @return the smallest value, or NaN if no values were added
+	 */
+	public double getMin()
+	{
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * Returns the largest value
+	 * @return the largest value, or NaN if no values were added
+	 */
+	public double getMax()
+	{
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Returns the estimate of a quantile
+	 * @param quantile one of the quantiles given when these statistics were created
+	 * @return the estimate, or NaN if no values were added
+	 */
+	public double getQuantile(double quantile)
+	{
+		for (QuantileSketch sketch : sketches)
+			if (sketch.getQuantile() == quantile)
+				return sketch.get();
+		throw new IllegalArgumentException("quantile " + quantile + " is not being estimated");
+	}
+
+	/**
+	 * Returns half the width of a confidence interval for the mean
+	 * @param confidence the confidence level (eg. 0.95)
+	 * @return the half-width, or infinity if fewer than two values were added
+	 */
+	public double getHalfWidth(double confidence)
+	{
+		if (count < 2)
+			return Double.POSITIVE_INFINITY;
+		return studentT((1 + confidence) / 2, count - 1) * getStandardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Returns half the width of a 95% confidence interval for the mean
+	 * @return the half-width, or infinity if fewer than two values were added
+	 */
+	public double getHalfWidth()
+	{
+		return getHalfWidth(CONFIDENCE);
+	}
+
+	/**
+	 * Returns the mean, its confidence interval, and the quantiles
+	 * @return the summary, eg. "0.3066 +/- 0.0072 (sd 0.0193, 30 values; p5 0.2740, p50 0.3060, p95 0.3380)"
+	 */
+	public String toString()
+	{
+		StringBuilder summary = new StringBuilder(String.format("%.4f +/- %.4f (sd %.4f, %d values", getMean(),
+			getHalfWidth(), getStandardDeviation(), count));
+		for (int i = 0; i < sketches.length; i++)
+			summary.append(String.format(i == 0 ? "; p%s %.4f" : ", p%s %.4f",
+				formatPercent(sketches[i].getQuantile()), sketches[i].get()));
+		return summary.append(')').toString();
+	}
+
+	/**
+	 * Formats a quantile as a percentile without a trailing ".0"
+	 * @param quantile the quantile (eg. 0.05)
+	 * @return the percentile (eg. "5")
+	 */
+	private static String formatPercent(double quantile)
+	{
+		double percent = quantile * 100;
+		long rounded = Math.round(percent);
+		return Math.abs(percent - rounded) < 1e-9 ? String.valueOf(rounded) : String.valueOf(percent);
+	}
+
+	/**
+	 * Returns the value that Student's t distribution is below with the given
+	 * probability, using the Cornish-Fisher expansion around the normal distribution
+	 * (which is close once there are more than a few degrees of freedom)
+	 * @param probability the probability (between 0.5 and 1)
+	 * @param freedom the degrees of freedom
+	 * @return the quantile
+	 */
+	private static double studentT(double probability, long freedom)
+	{
+		double z = normal(probability), z2 = z * z, v = freedom;
+		return z + z * (z2 + 1) / (4 * v) + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+			+ z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v);
+	}
+
+	/**
+	 * Returns the value that the standard normal distribution is below with the
+	 * given probability (to within about 0.0005, by Abramowitz and Stegun 26.2.23)
+	 * @param probability the probability (between 0 and 1)
+	 * @return the quantile
+	 */
+	private static double normal(double probability)
+	{
+		double p = Math.min(probability, 1 - probability), t = Math.sqrt(-2 * Math.log(p));
+		double z = t - (2.515517 + 0.802853 * t + 0.010328 * t * t) / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+		return probability < 0.5 ? -z : z;
+	}
+}
@@ -0,0 +1,363 @@
+/**
+ * ScalingBenchmark.java
+ *
+ * HOW TO RUN:
+ * type the following in the terminal: "java ScalingBenchmark"
+ * (optionally followed by comma-separated population sizes,
+ * thread counts, and room counts, the seconds each replica
+ * should run for, and the CSV file to write, eg.
+ * "java -Xmx8g ScalingBenchmark 1000,100000 1,2,4,8 0,3 2 scaling.csv").
+ *
+ * Measures how the whole engine scales, so that capacity planning
+ * can be based on data. A simulation runs on one thread, so it
+ * scales by running independent replicas (different seeds) side
+ * by side, one per thread, which is how a cluster runs a batch.
+ * For each population size and number of rooms, one replica is
+ * built to measure the heap it uses per person and warmed up to
+ * time a tick, which sets how many ticks every replica runs (about
+ * the given number of seconds on one thread). Then, for each
+ * thread count, replicas are built headless and released together:
+ *
+ * weak scaling runs one replica per thread, so the work grows with
+ * the threads and perfect scaling keeps the time the same;
+ *
+ * strong scaling runs a fixed batch of replicas (one per thread of
+ * the largest thread count) in waves of one per thread, so the
+ * work is fixed and perfect scaling divides the time by the
+ * threads.
+ *
+ * Only ticking is timed, not building. Ticks per second and
+ * agent-updates (living people ticked) per second are totals over
+ * the replicas running together. Parallel efficiency compares the
+ * speedup with the smallest thread count measured to the ideal
+ * one. Sizes whose replicas would not fit in the heap (judged from
+ * the memory per person of the last size measured) are skipped.
+ * Every row goes to the CSV file and a summary table to the
+ * console.
+ *
+ * The world is a fixed 20 by 20 square, and SpatialGrid cannot
+ * use cells smaller than a person, so the grid never has more than
+ * 2500 cells. Adding people makes every cell more crowded instead
+ * of adding cells, and a tick costs about N squared over 2500 pair
+ * tests: roughly 3 seconds at 100,000 people and 50 at 400,000. The
+ * default sizes therefore stop at 100,000. Larger sizes can still
+ * be given, but expect minutes to hours per tick.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+public class ScalingBenchmark
+{
+	/** The default population sizes (the largest that a tick of the fixed-size world can run in seconds) */
+	private static final int[] PEOPLE = {1000, 10000, 100000};
+
+	/** The default room counts */
+	private static final int[] ROOMS = {0, 3};
+
+	/** The default number of seconds that a replica runs for on one thread */
+	private static final double SECONDS = 2.0;
+
+	/** The number of seconds that the first replica of each size warms up for */
+	private static final double WARM_UP_SECONDS = 1.0;
+
+	/** The default file that the results are written to */
+	private static final String OUTPUT = "scaling.csv";
+
+	/** The fraction of the heap that the replicas running together may use */
+	private static final double HEAP_FRACTION = 0.8;
+
+	/** The rates of every replica */
+	private static final double INFECT_RATE = 0.6, SHELTER_IN_PLACE_RATE = 0.2, DEATH_RATE = 0.3;
+
+	/** The columns of the CSV file */
+	private static final String HEADER = "people,rooms,threads,ticks_per_replica,bytes_per_agent,weak_seconds,"
+		+ "ticks_per_second,agent_updates_per_second,weak_efficiency,strong_replicas,strong_seconds,strong_efficiency,note";
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * The time and work of replicas that ticked together
+	 */
+	private static class Wave
+	{
+		private final long nanos, ticks, updates;
+
+		/**
+		 * Instantiates a Wave object
+		 * @param nanos the wall-clock time from the release of the replicas until the last one finished
+		 * @param ticks the number of ticks run by every replica together
+		 * @param updates the number of living people ticked by every replica together
+		 */
+		private Wave(long nanos, long ticks, long updates)
+		{
+			this.nanos = nanos;
+			this.ticks = ticks;
+			this.updates = updates;
+		}
+	}
+
+	/**
+	 * Runs every combination of population size, thread count, and room count
+	 * @param args the population sizes, thread counts, room counts, seconds per replica, and CSV file (all optional)
+	 */
+	public static void main(String[] args)
+	{
+		int[] sizes = args.length > 0 ? parseList(args[0]) : PEOPLE;
+		int[] threads = args.length > 1 ? parseList(args[1]) : defaultThreads();
+		int[] rooms = args.length > 2 ? parseList(args[2]) : ROOMS;
+		double seconds = args.length > 3 ? Double.parseDouble(args[3]) : SECONDS;
+		String output = args.length > 4 ? args[4] : OUTPUT;
+		int batch = 0;
+		for (int t : threads)
+			batch = Math.max(batch, t);
+
+		System.out.printf("%d processors, %.0f MB heap, batch of %d replicas for strong scaling%n",
+			Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / 1e6, batch);
+		System.out.printf("%10s %5s %7s %8s %12s %14s %9s %9s %10s%n", "people", "rooms", "threads", "ticks",
+			"ticks/s", "updates/s", "B/agent", "weak eff", "strong eff");
+		try (PrintWriter csv = new PrintWriter(new FileWriter(output)))
+		{
+			csv.println(HEADER);
+			for (int r : rooms)
+			{
+				double bytesPerAgent = 0;
+				for (int people : sizes)
+					bytesPerAgent = measureSize(csv, people, r, threads, batch, seconds, bytesPerAgent);
+			}
+		}
+		catch (IOException e)
+		{
+			System.err.println("Cannot write " + output + ": " + e.getMessage());
+			System.exit(1);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		System.out.println("Wrote " + output);
+	}
+
+	/**
+	 * Measures one population size and room count at every thread count
+	 * @param csv where to write the rows
+	 * @param people the number of people in each replica
+	 * @param rooms the number of rooms in each replica
+	 * @param threads the thread counts, in increasing order
+	 * @param batch the number of replicas run for strong scaling
+	 * @param seconds roughly how long each replica runs for on one thread
+	 * @param bytesPerAgent the heap per person measured for the last size, or 0 if none was
+	 * @return the heap per person measured for this size (or the last one, if this size was skipped)
+	 * @throws InterruptedException if the benchmark is interrupted
+	 */
+	private static double measureSize(PrintWriter csv, int people, int rooms, int[] threads, int batch, double seconds,
+		double bytesPerAgent) throws InterruptedException
+	{
+		if (!fits(people, 1, bytesPerAgent))
+		{
+			skip(csv, people, rooms, threads[0], "does not fit in the heap");
+			return bytesPerAgent;
+		}
+
+		long ticks;
+		try
+		{
+			long before = usedHeap();
+			Simulation simulation = new Simulation(people, INFECT_RATE, SHELTER_IN_PLACE_RATE, DEATH_RATE, rooms, 0);
+			bytesPerAgent = Math.max(0, usedHeap() - before) / (double)people;
+			// at least three ticks, so the time of one is not all start-up
+			long start = System.nanoTime(), count = 0;
+			while (count < 3 || System.nanoTime() - start < WARM_UP_SECONDS * 1e9)
+			{
+				simulation.tick();
+				count++;
+			}
+			ticks = Math.max(1, (long)(seconds * 1e9 / ((System.nanoTime() - start) / (double)count)));
+		}
+		catch (OutOfMemoryError e)
+		{
+			skip(csv, people, rooms, threads[0], "out of memory");
+			return bytesPerAgent;
+		}
+
+		Wave weakBase = null;
+		long strongBase = 0;
+		int base = 0;
+		for (int t : threads)
+		{
+			if (!fits(people, t, bytesPerAgent))
+			{
+				skip(csv, people, rooms, t, "does not fit in the heap");
+				continue;
+			}
+			Wave weak;
+			long strong = 0;
+			try
+			{
+				// the first wave of the batch has one replica per thread, so it is also the weak scaling run
+				weak = runWave(people, rooms, t, 1, ticks);
+				strong = weak.nanos;
+				for (int first = t; first < batch; first += t)
+					strong += runWave(people, rooms, Math.min(t, batch - first), first + 1, ticks).nanos;
+			}
+			catch (OutOfMemoryError e)
+			{
+				skip(csv, people, rooms, t, "out of memory");
+				continue;
+			}
+			if (weakBase == null)
+			{
+				weakBase = weak;
+				strongBase = strong;
+				base = t;
+			}
+			double tickRate = weak.ticks / (weak.nanos / 1e9), updateRate = weak.updates / (weak.nanos / 1e9);
+			double weakEfficiency = tickRate / (weakBase.ticks / (weakBase.nanos / 1e9)) * base / t;
+			double strongEfficiency = strongBase / (double)strong * base / t;
+			csv.println(String.format(Locale.ROOT, "%d,%d,%d,%d,%.1f,%.4f,%.2f,%.0f,%.4f,%d,%.4f,%.4f,", people, rooms, t,
+				ticks, bytesPerAgent, weak.nanos / 1e9, tickRate, updateRate, weakEfficiency, batch, strong / 1e9,
+				strongEfficiency));
+			csv.flush();
+			System.out.printf("%10d %5d %7d %8d %12.2f %14.0f %9.0f %8.0f%% %9.0f%%%n", people, rooms, t, ticks, tickRate,
+				updateRate, bytesPerAgent, 100 * weakEfficiency, 100 * strongEfficiency);
+		}
+		return bytesPerAgent;
+	}
+
+	/**
+	 * Builds replicas, then ticks them together, one per thread
+	 * @param people the number of people in each replica
+	 * @param rooms the number of rooms in each replica
+	 * @param replicas the number of replicas (and threads)
+	 * @param firstSeed the seed of the first replica (the others follow it)
+	 * @param ticks the number of ticks that each replica runs
+	 * @return the time and work of the replicas
+	 * @throws InterruptedException if the benchmark is interrupted
+	 */
+	private static Wave runWave(int people, int rooms, int replicas, long firstSeed, long ticks) throws InterruptedException
+	{
+		Simulation[] simulations = new Simulation[replicas];
+		for (int i = 0; i < replicas; i++)
+			simulations[i] = new Simulation(people, INFECT_RATE, SHELTER_IN_PLACE_RATE, DEATH_RATE, rooms, firstSeed + i);
+		usedHeap();
+
+		long[] updates = new long[replicas];
+		CyclicBarrier release = new CyclicBarrier(replicas + 1);
+		Thread[] workers = new Thread[replicas];
+		for (int i = 0; i < replicas; i++)
+		{
+			int index = i;
+			workers[i] = new Thread(() -> {
+				Simulation simulation = simulations[index];
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException | BrokenBarrierException e)
+				{
+					return;
+				}
+				long living = 0;
+				for (long tick = 0; tick < ticks; tick++)
+				{
+					living += simulation.getLiving();
+					simulation.tick();
+				}
+				updates[index] = living;
+			}, "scaling-" + i);
+			workers[i].start();
+		}
+		try
+		{
+			release.await();
+		}
+		catch (BrokenBarrierException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		long start = System.nanoTime();
+		for (Thread worker : workers)
+			worker.join();
+		long nanos = System.nanoTime() - start, total = 0;
+		for (long count : updates)
+			total += count;
+		return new Wave(nanos, ticks * replicas, total);
+	}
+
+	/**
+	 * Determines whether replicas of a size would fit in the heap together
+	 * @param people the number of people in each replica
+	 * @param replicas the number of replicas
+	 * @param bytesPerAgent the heap per person, or 0 if it is not known yet
+	 * @return whether or not they are expected to fit
+	 */
+	private static boolean fits(int people, int replicas, double bytesPerAgent)
+	{
+		return bytesPerAgent * people * replicas <= HEAP_FRACTION * Runtime.getRuntime().maxMemory();
+	}
+
+	/**
+	 * Writes a row for a thread count that was not measured
+	 * @param csv where to write the row
+	 * @param people the number of people in each replica
+	 * @param rooms the number of rooms in each replica
+	 * @param threads the thread count
+	 * @param reason why it was not measured
+	 */
+	private static void skip(PrintWriter csv, int people, int rooms, int threads, String reason)
+	{
+		csv.println(people + "," + rooms + "," + threads + ",,,,,,,,,," + reason);
+		csv.flush();
+		System.out.printf("%10d %5d %7d  skipped: %s%n", people, rooms, threads, reason);
+	}
+
+	/**
+	 * Collects garbage, then returns how much of the heap is in use
+	 * @return the heap in use, in bytes
+	 */
+	private static long usedHeap()
+	{
+		System.gc();
+		System.gc();
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Returns the default thread counts: powers of two up to the number of processors, and that number
+	 * @return the thread counts, in increasing order
+	 */
+	private static int[] defaultThreads()
+	{
+		int processors = Runtime.getRuntime().availableProcessors(), count = 0;
+		int[] threads = new int[32];
+		for (int t = 1; t < processors; t *= 2)
+			threads[count++] = t;
+		threads[count++] = processors;
+		return Arrays.copyOf(threads, count);
+	}
+
+	/**
+	 * Reads a comma-separated list of numbers
+	 * @param list the list, eg. "1,2,4"
+	 * @return the numbers, sorted
+	 */
+	private static int[] parseList(String list)
+	{
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Integer.parseInt(parts[i].trim());
+		Arrays.sort(values);
+		return values;
+	}
+}
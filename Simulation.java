@@ -4,7 +4,10 @@
  * HOW TO RUN:
  * type the following in the terminal: "java Simulation".
  * No command-line arguments are required, as all information
- * is read using run-time input.
+ * is read using run-time input. To resume a run from a saved
+ * checkpoint instead, type "java Simulation <checkpoint file>".
+ * To run without asking anything or opening a window (eg. as
+ * one task of a batch job), use Launcher instead.
  * 
  * Simulates a situation in which a virus spreads through
  * a population of people, spread by contact. The details
@@ -20,18 +23,72 @@
  * @since 8/28/2019
  */
 
-import java.awt.Color;
-import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
 
 public class Simulation
 {
+	/** The ways that a tick can find who each person might be touching, which all give the same run from a seed */
+	public enum Engine { PAIR_LOOP, GRID }
+
+	/** Why a run finished: nobody is infected, the counts stopped changing, or the tick cap was reached */
+	public enum Outcome { RUNNING, EXTINCT, STEADY, TICK_CAP }
+
 	private int numberOfPeople, numRooms;
 	private double infectRate, shelterInPlaceRate, deathRate;
 	private ArrayList<Person> people, dead;
+	private Person[] byId;
 	private ArrayList<Wall> walls;
-	private ArrayList<Double> percentInfected, percentCured, percentHealthy, percentDead;
-	public static double totalPercentUninfected = 0, totalPercentDead = 0, totalPercentCured = 0, numSimulations = 0;
+	private Wall[] wallArray;
+	private History history;
+	private InfectionTree tree;
+	private Rng rng;
+	private Checkpointer checkpointer;
+	private File checkpointFile;
+	private long checkpointNanos, lastCheckpoint;
+	private SpatialGrid grid;
+	private Engine engine = Engine.GRID;
+	private int[] counts = new int[4];
+	private TimeSeriesWriter exporter;
+	private TrajectoryWriter trajectory;
+	private ContactRecorder contacts;
+	private TickProfiler profiler;
+	private final LatencyHistogram tickLatency = new LatencyHistogram(), reportedTicks = new LatencyHistogram(),
+		reportedFrames = new LatencyHistogram(), sinceReport = new LatencyHistogram(), frameLatency = new LatencyHistogram();
+	private long latencyReportNanos = LATENCY_REPORT_MILLIS * 1000000L, lastLatencyReport;
+	private Viewport viewport;
+	private double dragX, dragY;
+	private boolean dragging, pressedButton, viewChanged;
+	private int ticksPerSecond = 50, framesPerSecond = 50, renderEvery = 10, firstFading = 0, peak = 0;
+	private int steadyTicks = 0, unchangedTicks = 0;
+	private long tickCount = 0, maxTicks = 0;
+	private Outcome outcome = Outcome.RUNNING;
+	private boolean maxSpeed = false, renderThread = Runtime.getRuntime().availableProcessors() > 1;
+	private TripleBuffer<Snapshot> snapshots;
+	private Renderer renderer;
+	public static final RunningStatistics finalUninfected = new RunningStatistics(), finalCured = new RunningStatistics(),
+		finalDead = new RunningStatistics(), peakInfected = new RunningStatistics();
+	public static final LatencyHistogram totalTickLatency = new LatencyHistogram(), totalFrameLatency = new LatencyHistogram();
+
+	/** The number of slices shown in the background graph */
+	private static final int SLICES = 1000;
+
+	/** The most ticks run in one frame before the simulation falls behind real time */
+	private static final int MAX_TICKS_PER_FRAME = 64;
+
+	/** How much one notch of the mouse wheel zooms out (or in, turned the other way) */
+	private static final double ZOOM_PER_NOTCH = 1.25;
+
+	/** The default time between reports of tick and frame latency percentiles, in milliseconds */
+	private static final long LATENCY_REPORT_MILLIS = 10000;
+
+	/** How far outside of the viewport people are looked for, since the grid is built at the start of a tick */
+	private static final double CULL_MARGIN = 1.0;
 
 	/**
 	 * Instantiates a Simulation object
@@ -43,6 +100,22 @@ public class Simulation
 	 */
 	public Simulation (int numberOfPeople, double infectRate, double shelterInPlaceRate, double deathRate, int numRooms)
 	{
+		this(numberOfPeople, infectRate, shelterInPlaceRate, deathRate, numRooms, new Rng().nextLong());
+	}
+
+	/**
+	 * Instantiates a Simulation object whose random choices all come from the
+	 * given seed, so that the same seed always gives the same run
+	 * @param numberOfPeople the number of people in the simulation
+	 * @param infectRate the infection rate of the virus
+	 * @param shelterInPlaceRate the fraction of people sheltering-in-place
+	 * @param deathRate the fraction of people who die from the virus
+	 * @param numRooms the number of public, enclosed spaces in the simulation
+	 * @param seed the seed for the random number generator
+	 */
+	public Simulation (int numberOfPeople, double infectRate, double shelterInPlaceRate, double deathRate, int numRooms, long seed)
+	{
+		rng = new Rng(seed);
 		this.numberOfPeople = numberOfPeople;
 		this.infectRate = infectRate;
 		this.shelterInPlaceRate = shelterInPlaceRate;
@@ -53,22 +126,350 @@ public class Simulation
 		putRooms(numRooms);
 
 		people = new ArrayList<Person>();
-		dead = new ArrayList<Person>();
+		dead = new ArrayList<Person>(numberOfPeople);
+		byId = new Person[numberOfPeople];
+		history = new History(SLICES);
+		tree = new InfectionTree(numberOfPeople);
+		populate();
+		createViews();
+	}
+
+	/**
+	 * Instantiates a Simulation object with the given parameters whose random
+	 * choices all come from the given seed
+	 * @param config the number of people, the rates of the virus, and the number of rooms
+	 * @param seed the seed for the random number generator
+	 */
+	public Simulation (SimulationConfig config, long seed)
+	{
+		this(config.getPeople(), config.getInfectRate(), config.getShelterInPlaceRate(), config.getDeathRate(),
+			config.getRooms(), seed);
+	}
+
+	/**
+	 * Instantiates a Simulation object from a checkpoint written by writeState()
+	 * @param in the state, positioned at its start
+	 */
+	private Simulation (ByteBuffer in)
+	{
+		numberOfPeople = in.getInt();
+		numRooms = in.getInt();
+		infectRate = in.getDouble();
+		shelterInPlaceRate = in.getDouble();
+		deathRate = in.getDouble();
+		rng = new Rng(in.getLong());
+		tickCount = in.getLong();
+		firstFading = in.getInt();
+		peak = in.getInt();
+		unchangedTicks = in.getInt();
+		steadyTicks = in.getInt();
+		maxTicks = in.getLong();
+		outcome = Outcome.values()[in.getInt()];
+
+		walls = new ArrayList<Wall>();
+		for (int i = in.getInt(); i > 0; i--)
+			walls.add(new Wall(in));
+		wallArray = walls.toArray(new Wall[walls.size()]);
+
+		// people are linked to who they last collided with by id once everyone has been read
+		byId = new Person[numberOfPeople];
+		int[] lastCollided = new int[numberOfPeople];
+		people = readPeople(in, byId, lastCollided);
+		dead = readPeople(in, byId, lastCollided);
+		dead.ensureCapacity(numberOfPeople);
+		for (Person p : byId)
+			if (p != null && lastCollided[p.getId()] >= 0)
+				p.setLastCollided(byId[lastCollided[p.getId()]]);
+		history = new History(in);
+		tree = new InfectionTree(in);
+		// the counts are from the start of the last tick, which is the last entry of the history (people
+		// counted now would give the start of the next tick); the fractions are of everyone, living and dead
+		if (!history.isEmpty())
+		{
+			long last = history.getTotal() - 1;
+			counts[0] = (int)Math.round(history.getHealthy(last) * numberOfPeople);
+			counts[1] = (int)Math.round(history.getInfected(last) * numberOfPeople);
+			counts[2] = (int)Math.round(history.getCured(last) * numberOfPeople);
+			counts[3] = (int)Math.round(history.getDead(last) * numberOfPeople);
+		}
+		createViews();
+	}
+
+	/**
+	 * Adds everyone (the last of them infected) and records the infected in the infection tree
+	 */
+	private void populate()
+	{
 		for(int i = 0; i < numberOfPeople - 1; i++)
 			addNew(numberOfPeople, 0, infectRate, shelterInPlaceRate, deathRate);
 		if (shelterInPlaceRate < 1)
 			addNew(numberOfPeople, 1, infectRate, 0, deathRate);
 		else
 			addNew(numberOfPeople, 1, infectRate, shelterInPlaceRate, deathRate);
-		percentInfected = new ArrayList<Double>();
-		percentCured = new ArrayList<Double>();
-		percentHealthy = new ArrayList<Double>();
-		percentDead = new ArrayList<Double>();
+		for (Person p : people)
+			if (p.getViralState() == 1)
+				tree.seed(p.getId(), 0);
+	}
+
+	/**
+	 * Starts the simulation over in place, exactly as if it had just been
+	 * created with the given parameters and seed. The people, walls, history,
+	 * and infection tree are reused rather than allocated again (the walls
+	 * are only rebuilt if the number of rooms changed), so that one instance
+	 * can run replica after replica. Settings such as the engine, the
+	 * termination, the speed, and the viewport are kept; exporting and
+	 * recording contacts continue as a new replica, and a trajectory being
+	 * recorded is stopped. This must be called between ticks, and not while
+	 * the render thread is running
+	 * @param config the number of people, the rates of the virus, and the number of rooms
+	 * @param seed the seed for the random number generator
+	 */
+	public void reset(SimulationConfig config, long seed)
+	{
+		rng.setState(seed);
+		numberOfPeople = config.getPeople();
+		infectRate = config.getInfectRate();
+		shelterInPlaceRate = config.getShelterInPlaceRate();
+		deathRate = config.getDeathRate();
+		if (config.getRooms() != numRooms)
+		{
+			numRooms = config.getRooms();
+			walls.clear();
+			putRooms(numRooms);
+			wallArray = null;
+		}
+
+		people.clear();
+		dead.clear();
+		dead.ensureCapacity(numberOfPeople);
+		history.clear();
+		if (tree.getPeople() == numberOfPeople)
+			tree.reset();
+		else
+			tree = new InfectionTree(numberOfPeople);
+		populate();
+		grid.build(people);
+
+		tickCount = 0;
+		firstFading = 0;
+		peak = 0;
+		unchangedTicks = 0;
+		outcome = Outcome.RUNNING;
+		Arrays.fill(counts, 0);
+		tickLatency.reset();
+		reportedTicks.reset();
+		reportedFrames.reset();
+		if (renderer != null)
+			renderer.reset();
+		stopTrajectory();
+		exportTo(exporter);
+		setContactRecorder(contacts);
+	}
+
+	/**
+	 * Returns the parameters of the simulation
+	 * @return the number of people, the rates of the virus, and the number of rooms
+	 */
+	public SimulationConfig getConfig()
+	{
+		return new SimulationConfig(numberOfPeople, infectRate, shelterInPlaceRate, deathRate, numRooms);
+	}
+
+	/**
+	 * Reads a list of people written by writePeople()
+	 * @param in the state, positioned at the start of the list
+	 * @param byId where to put each person, by id
+	 * @param lastCollided where to put the id of who each person last collided with (by id; -1 for nobody)
+	 * @return the people
+	 */
+	private ArrayList<Person> readPeople(ByteBuffer in, Person[] byId, int[] lastCollided)
+	{
+		int size = in.getInt();
+		ArrayList<Person> list = new ArrayList<Person>(size);
+		for (int i = 0; i < size; i++)
+		{
+			Person p = new Person(in, wallArray, rng);
+			byId[p.getId()] = p;
+			lastCollided[p.getId()] = in.getInt();
+			list.add(p);
+		}
+		return list;
+	}
+
+	/**
+	 * Creates everything used to look at the simulation rather than to run it:
+	 * the spatial grid, the viewport, the checkpointer, and the profiler (the
+	 * renderer is only created once something needs it)
+	 */
+	private void createViews()
+	{
+		grid = new SpatialGrid();
+		grid.build(people);
+		viewport = new Viewport();
+		checkpointer = new Checkpointer();
+		profiler = new TickProfiler();
+	}
+
+	/**
+	 * Returns the renderer, creating it and the snapshots it draws the first
+	 * time, so that a simulation that is never drawn (eg. one run by Launcher)
+	 * never loads the fonts and the rest of AWT that the renderer needs
+	 * @return the renderer
+	 */
+	private Renderer getRenderer()
+	{
+		if (renderer == null)
+		{
+			snapshots = new TripleBuffer<Snapshot>(new Snapshot(SLICES), new Snapshot(SLICES), new Snapshot(SLICES));
+			renderer = new Renderer(snapshots, SLICES, framesPerSecond);
+			renderer.setProfiler(profiler);
+		}
+		return renderer;
+	}
+
+	/**
+	 * Reads a simulation from a checkpoint file, ready to continue exactly
+	 * where the saved simulation left off and to finish by the same criteria
+	 * @param file the checkpoint file
+	 * @return the simulation
+	 * @throws IOException if the file cannot be read or is not a valid checkpoint
+	 */
+	public static Simulation restore(File file) throws IOException
+	{
+		return new Simulation(Checkpointer.read(file));
+	}
+
+	/**
+	 * Returns the number of bytes that writeState() will write
+	 * @return the size of the state in bytes
+	 */
+	public int getStateBytes()
+	{
+		return 2 * 4 + 3 * 8 + 8 + 8 + 4 + 4 + 4 + 4 + 8 + 4 + 4 + 32 * walls.size() + 2 * 4 + (Person.BYTES + 4) * (people.size() + dead.size())
+			+ history.getBytes() + tree.getBytes();
+	}
+
+	/**
+	 * Writes everything needed to continue the simulation exactly: its
+	 * parameters, the state of the random number generator, the tick
+	 * counter, the peak number infected, how long the counts have not
+	 * changed, when the run finishes (see setTermination()) and whether it
+	 * has, the walls, every person (living and dead, in order), the history
+	 * of the graph, and the infection tree. This must be called between ticks
+	 * @param out where to write the state (with at least getStateBytes() bytes left)
+	 */
+	public void writeState(ByteBuffer out)
+	{
+		out.putInt(numberOfPeople).putInt(numRooms).putDouble(infectRate).putDouble(shelterInPlaceRate).putDouble(deathRate);
+		out.putLong(rng.getState()).putLong(tickCount).putInt(firstFading).putInt(peak).putInt(unchangedTicks);
+		out.putInt(steadyTicks).putLong(maxTicks).putInt(outcome.ordinal());
+		if (wallArray == null || wallArray.length != walls.size())
+			wallArray = walls.toArray(new Wall[walls.size()]);
+		out.putInt(wallArray.length);
+		for (Wall curr : wallArray)
+			curr.write(out);
+		writePeople(out, people);
+		writePeople(out, dead);
+		history.write(out);
+		tree.write(out);
+	}
+
+	/**
+	 * Writes a list of people, each followed by the id of who they last collided with
+	 * @param out where to write the people
+	 * @param list the people
+	 */
+	private void writePeople(ByteBuffer out, ArrayList<Person> list)
+	{
+		out.putInt(list.size());
+		for (int i = 0; i < list.size(); i++)
+		{
+			Person p = list.get(i);
+			p.write(out, wallArray);
+			out.putInt(p.getLastCollided() == null ? -1 : p.getLastCollided().getId());
+		}
+	}
+
+	/**
+	 * Saves a checkpoint to the given file every so often while the simulation
+	 * runs. Saving copies the state between ticks and writes it in the background
+	 * @param file the checkpoint file, or null to stop checkpointing
+	 * @param intervalMillis the time between checkpoints in milliseconds
+	 */
+	public void setCheckpointing(File file, long intervalMillis)
+	{
+		checkpointFile = file;
+		checkpointNanos = intervalMillis * 1000000L;
+		lastCheckpoint = System.nanoTime();
+	}
+
+	/**
+	 * Returns who infected whom, along with live estimates of R(t) and the
+	 * generation interval
+	 * @return the infection tree
+	 */
+	public InfectionTree getInfectionTree()
+	{
+		return tree;
+	}
+
+	/**
+	 * Returns the profiler that times each phase of a tick, which runLoop()
+	 * publishes as an MBean for JMX clients
+	 * @return the profiler
+	 */
+	public TickProfiler getProfiler()
+	{
+		return profiler;
+	}
+
+	/**
+	 * Sets how often the percentiles of tick and frame latency since the last
+	 * report are printed while the simulation runs
+	 * @param intervalMillis the time between reports in milliseconds, or 0 to not report
+	 */
+	public void setLatencyReporting(long intervalMillis)
+	{
+		latencyReportNanos = Math.max(0, intervalMillis) * 1000000L;
+	}
+
+	/**
+	 * Returns how long each tick of this simulation has taken
+	 * @return the histogram of tick latencies
+	 */
+	public LatencyHistogram getTickLatency()
+	{
+		return tickLatency;
+	}
+
+	/**
+	 * Prints the percentiles of the tick and frame latencies since the last report
+	 */
+	private void reportLatency()
+	{
+		sinceReport.setToDifference(tickLatency, reportedTicks);
+		reportedTicks.copyFrom(tickLatency);
+		String ticks = sinceReport.toString();
+		// the render thread is still recording frames, so they are read from a copy taken under its lock
+		renderer.copyFrameLatency(frameLatency);
+		sinceReport.setToDifference(frameLatency, reportedFrames);
+		reportedFrames.copyFrom(frameLatency);
+		System.out.println("Ticks: " + ticks + "; frames: " + sinceReport);
+	}
+
+	/**
+	 * Returns the checkpointer that saves this simulation
+	 * @return the checkpointer
+	 */
+	public Checkpointer getCheckpointer()
+	{
+		return checkpointer;
 	}
 
 	/**
 	 * Adds a new person at a location where they will not overlap with
-	 * other people or walls
+	 * other people or walls, reusing the person with the same id left over
+	 * from before the simulation was reset, if there is one
 	 * @param numExpected the number of people expected for the simulation
 	 * @param viralState the viral state that the new person should have
 	 * @param infectRate the infection rate of the virus
@@ -77,9 +478,16 @@ public class Simulation
 	 */
 	public void addNew(int numExpected, int viralState, double infectRate, double shelterInPlaceRate, double deathRate)
 	{
-		Person add = new Person(viralState, infectRate, shelterInPlaceRate, deathRate);
+		int id = people.size();
+		if (id >= byId.length)
+			byId = Arrays.copyOf(byId, Math.max(id + 1, 2 * byId.length));
+		Person add = byId[id];
+		if (add == null)
+			add = byId[id] = new Person(id, viralState, infectRate, shelterInPlaceRate, deathRate, rng);
+		else
+			add.reset(id, viralState, infectRate, shelterInPlaceRate, deathRate);
 		while (numExpected <= 2000 && hasOverLaps(add))
-			add = new Person(viralState, infectRate, shelterInPlaceRate, deathRate);
+			add.reset(id, viralState, infectRate, shelterInPlaceRate, deathRate);
 		people.add(add);	
 	}
 
@@ -141,6 +549,21 @@ public class Simulation
 	 */
 	public static void main(String [] args) 
 	{
+		if (args.length > 0)
+		{
+			try
+			{
+				Simulation.restore(new File(args[0])).start();
+			}
+			catch (IOException e)
+			{
+				System.err.println("Cannot resume from " + args[0] + ": " + e.getMessage());
+				return;
+			}
+			System.out.println("\n\n");
+			showStatistics();
+			return;
+		}
 		System.out.println("\n\n\nCREATE A VIRUS SIMULATION\n");
 		int numberOfPeople = Prompt.getInt("Enter the number of people in the simulation", 1, 2000);
 		double infectRate = Prompt.getDouble("Enter the infection rate of the virus", 0.0, 1.0);
@@ -151,25 +574,54 @@ public class Simulation
 		run.setUp();
 		run.runLoop();
 		System.out.println("\n\n");
-		double percentUninfected = totalPercentUninfected / numSimulations * 100,
-			percentDead = totalPercentDead / numSimulations * 100,
-			percentCured = totalPercentCured / numSimulations * 100, percentInfected = percentCured + percentDead;
+		showStatistics();
+	}
+
+	/**
+	 * Shows the average results of every simulation that was run, each with
+	 * the half-width of its 95% confidence interval once there are two or more
+	 */
+	public static void showStatistics()
+	{
+		double percentUninfected = finalUninfected.getMean() * 100, percentDead = finalDead.getMean() * 100,
+			percentCured = finalCured.getMean() * 100, percentInfected = 100 - percentUninfected;
 		StdDraw.clear(StdDraw.LIGHT_GRAY);
 		StdDraw.setPenColor(StdDraw.BLACK);
 		StdDraw.text(0, 8, "STATISTICS");
-		StdDraw.textLeft(-9, 5, String.format("Average percent uninfected: %.1f%%", percentUninfected));
+		StdDraw.textLeft(-9, 5, String.format("Average percent uninfected: %.1f%%", percentUninfected)
+			+ formatHalfWidth(finalUninfected));
 		StdDraw.setPenColor(StdDraw.RED);
-		StdDraw.textLeft(-9, 2, String.format("Average percent infected: %.1f%%", percentInfected));
+		StdDraw.textLeft(-9, 2, String.format("Average percent infected: %.1f%%", percentInfected)
+			+ formatHalfWidth(finalUninfected));
 		StdDraw.setPenColor(StdDraw.BOOK_BLUE);
-		StdDraw.textLeft(-7, -1, String.format("Average percent cured: %.1f%%", percentCured));
+		StdDraw.textLeft(-7, -1, String.format("Average percent cured: %.1f%%", percentCured) + formatHalfWidth(finalCured));
 		StdDraw.setPenColor(StdDraw.YELLOW);
-		StdDraw.textLeft(-7, -4, String.format("Average percent dead: %.1f%%", percentDead));
+		StdDraw.textLeft(-7, -4, String.format("Average percent dead: %.1f%%", percentDead) + formatHalfWidth(finalDead));
 		StdDraw.setPenColor(StdDraw.BLACK);
 		StdDraw.setPenRadius(.008);
 		StdDraw.line(-8, 1.5, -8, -4);
 		StdDraw.line(-8, -1, -7.25, -1);
 		StdDraw.line(-8, -4, -7.25, -4);
+		StdDraw.setFont(Renderer.STATUS_FONT);
+		StdDraw.textLeft(-9, -7, "Tick latency: " + totalTickLatency);
+		StdDraw.textLeft(-9, -8, "Frame latency: " + totalFrameLatency);
 		StdDraw.show();
+		System.out.println("Final fraction uninfected: " + finalUninfected);
+		System.out.println("Final fraction cured: " + finalCured);
+		System.out.println("Final fraction dead: " + finalDead);
+		System.out.println("Peak fraction infected: " + peakInfected);
+		System.out.println("Tick latency over every simulation: " + totalTickLatency);
+		System.out.println("Frame latency over every simulation: " + totalFrameLatency);
+	}
+
+	/**
+	 * Formats the half-width of the confidence interval of a fraction as percentage points
+	 * @param statistics the fraction over every simulation
+	 * @return eg. " (+/- 1.2%)", or nothing if fewer than two simulations were run
+	 */
+	private static String formatHalfWidth(RunningStatistics statistics)
+	{
+		return statistics.getCount() < 2 ? "" : String.format(" (+/- %.1f%%)", statistics.getHalfWidth() * 100);
 	}
 
 	/**
@@ -187,14 +639,20 @@ public class Simulation
 	 */
 	public void calculateRatios()
 	{
-		int[] values = new int[3];
-		for (Person curr : people)
-			values[curr.getViralState()]++;
-		double total = values[0] + values[1] + values[2] + dead.size();
-		percentHealthy.add(values[0] / total);
-		percentInfected.add(values[1] / total);
-		percentCured.add(values[2] / total);
-		percentDead.add(dead.size() / total);
+		Arrays.fill(counts, 0);
+		for (int i = 0; i < people.size(); i++)
+			counts[people.get(i).getViralState()]++;
+		counts[3] = dead.size();
+		peak = Math.max(peak, counts[1]);
+		double total = counts[0] + counts[1] + counts[2] + counts[3];
+		// everyone is always counted, so the fractions are unchanged exactly when the counts are
+		long last = history.getTotal() - 1;
+		if (!history.isEmpty() && history.getHealthy(last) == counts[0] / total && history.getInfected(last) == counts[1] / total
+			&& history.getCured(last) == counts[2] / total && history.getDead(last) == counts[3] / total)
+			unchangedTicks++;
+		else
+			unchangedTicks = 0;
+		history.add(counts[0] / total, counts[1] / total, counts[2] / total, counts[3] / total);
 	}
 
 	/**
@@ -206,114 +664,769 @@ public class Simulation
 		StdDraw.setXscale(-10.0, 10.0);
 		StdDraw.setYscale(-10.0, 10.0);
 		StdDraw.enableDoubleBuffering();
-		StdDraw.setFont(new Font("SansSerif", Font.BOLD, 30));
+		StdDraw.setFont(Renderer.TEXT_FONT);
+	}
+
+	/**
+	 * Sets the number of physics ticks simulated per second of real time
+	 * @param ticksPerSecond the new tick rate
+	 */
+	public void setTickRate(int ticksPerSecond)
+	{
+		this.ticksPerSecond = Math.max(1, ticksPerSecond);
+	}
+
+	/**
+	 * Sets the number of frames rendered per second of real time
+	 * @param framesPerSecond the new frame rate
+	 */
+	public void setFrameRate(int framesPerSecond)
+	{
+		this.framesPerSecond = Math.max(1, framesPerSecond);
+		getRenderer().getScheduler().setFrameRate(this.framesPerSecond);
+	}
+
+	/**
+	 * Returns the scheduler pacing the frames, which measures the achieved
+	 * frame rate and tick rate
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getScheduler()
+	{
+		return getRenderer().getScheduler();
+	}
+
+	/**
+	 * Turns the "max speed" mode on or off. In max speed mode, ticks are
+	 * run as fast as possible and only every k-th tick is rendered
+	 * @param maxSpeed whether or not to run at max speed
+	 * @param renderEvery the number of ticks between rendered frames
+	 */
+	public void setMaxSpeed(boolean maxSpeed, int renderEvery)
+	{
+		this.maxSpeed = maxSpeed;
+		this.renderEvery = Math.max(1, renderEvery);
+	}
+
+	/**
+	 * Chooses whether drawing happens on a separate render thread, so that
+	 * physics and rendering run at the same time on different cores, or
+	 * inline on the simulation thread
+	 * @param renderThread whether or not to use a separate render thread
+	 */
+	public void setRenderThread(boolean renderThread)
+	{
+		this.renderThread = renderThread;
+	}
+
+	/**
+	 * Sets the number of people above which the population is drawn as a
+	 * density map instead of one ball per person
+	 * @param densityThreshold the number of people, counting the dead
+	 */
+	public void setDensityThreshold(int densityThreshold)
+	{
+		getRenderer().setDensityThreshold(densityThreshold);
+	}
+
+	/**
+	 * Sets how each tick finds who each person might be touching
+	 * @param engine the engine (GRID unless it is being checked against PAIR_LOOP)
+	 */
+	public void setEngine(Engine engine)
+	{
+		this.engine = engine;
+	}
+
+	/**
+	 * Returns how each tick finds who each person might be touching
+	 * @return the engine
+	 */
+	public Engine getEngine()
+	{
+		return engine;
+	}
+
+	/**
+	 * Starts exporting the number of people in each compartment every tick
+	 * (and how long each tick took, if the file stores timing) as a new
+	 * replica in the given file. The caller closes the file when done
+	 * @param exporter the file to append to, or null to stop exporting
+	 * @throws IOException if the file cannot be written
+	 */
+	public void setExporter(TimeSeriesWriter exporter) throws IOException
+	{
+		this.exporter = exporter;
+		if (exporter != null)
+			exporter.beginReplica();
+	}
+
+	/**
+	 * Starts recording every contact between two people, with the tick it
+	 * happened in (counting from 0) and whether the virus passed, as a new
+	 * replica in the given file. The caller closes the recorder when done
+	 * @param contacts the recorder to append to, or null to stop recording contacts
+	 */
+	public void setContactRecorder(ContactRecorder contacts)
+	{
+		this.contacts = contacts;
+		if (contacts != null)
+			contacts.beginReplica();
+	}
+
+	/**
+	 * Starts recording every rendered frame to disk in the background. Frames
+	 * are dropped rather than slowing down the simulation if the encoders
+	 * fall behind
+	 * @param directory the directory to write frames into
+	 * @param format whether to write numbered PNG files or one raw file
+	 * @throws IOException if the directory or file cannot be created
+	 */
+	public void startRecording(File directory, FrameRecorder.Format format) throws IOException
+	{
+		stopRecording();
+		FrameRecorder recorder = new FrameRecorder(directory, format);
+		recorder.start();
+		getRenderer().setRecorder(recorder);
+	}
+
+	/**
+	 * Stops recording frames, waiting for the frames already captured to be
+	 * written. The render thread may still be capturing a frame with the
+	 * recorder; stopping the recorder waits for that frame to be queued, and
+	 * it refuses any later one, so every frame captured is written
+	 * @return the recorder that was stopped, or null if nothing was being recorded
+	 */
+	public FrameRecorder stopRecording()
+	{
+		FrameRecorder recorder = renderer == null ? null : renderer.getRecorder();
+		if (recorder == null)
+			return null;
+		renderer.setRecorder(null);
+		recorder.stop();
+		return recorder;
+	}
+
+	/**
+	 * Starts recording everyone's position and state every tick, so the run
+	 * can be played back later with Replay
+	 * @param file the trajectory file to write
+	 * @param keyframeInterval the number of ticks between keyframes (a seek
+	 *        decodes at most this many frames)
+	 * @throws IOException if the file cannot be created
+	 */
+	public void startTrajectory(File file, int keyframeInterval) throws IOException
+	{
+		stopTrajectory();
+		double radius = people.isEmpty() ? dead.get(0).getRadius() : people.get(0).getRadius();
+		trajectory = new TrajectoryWriter(file, numberOfPeople, radius, walls.toArray(new Wall[walls.size()]), keyframeInterval);
+		recordTrajectory();
+	}
+
+	/**
+	 * Stops recording the trajectory and finishes the file
+	 * @return whether a trajectory was being recorded
+	 */
+	public boolean stopTrajectory()
+	{
+		if (trajectory == null)
+			return false;
+		try
+		{
+			trajectory.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		trajectory = null;
+		return true;
+	}
+
+	/**
+	 * Records everyone's position and state at the current tick, stopping
+	 * the recording (with a message) if the file cannot be written
+	 */
+	private void recordTrajectory()
+	{
+		trajectory.beginFrame(tickCount);
+		for (Person curr : people)
+			trajectory.add(curr);
+		for (Person curr : dead)
+			trajectory.add(curr);
+		try
+		{
+			trajectory.endFrame();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			stopTrajectory();
+		}
 	}
 
 	/**
-	 * Runs an infinite loop to run the simulation
+	 * Runs an infinite loop to run the simulation. Physics is advanced in
+	 * fixed-size ticks using an accumulator of real time, so the speed of
+	 * the simulation does not depend on how long a frame takes to draw.
+	 * After the ticks that are due have run, a snapshot of the simulation is
+	 * published for the renderer, which either draws it on its own thread or
+	 * is called here, interpolating positions between the last two ticks.
 	 */
 	public void runLoop ()
 	{
+		FrameScheduler scheduler = getRenderer().getScheduler();
+		long previous = System.nanoTime(), accumulator = 0;
+		scheduler.setFrameRate(framesPerSecond);
+		try
+		{
+			profiler.register();
+		}
+		catch (JMException e)
+		{
+			e.printStackTrace();
+		}
+		publishSnapshot(0);
+		if (renderThread)
+			renderer.start();
+		boolean reported = false;
 		while (true)
 		{
-			StdDraw.clear(StdDraw.LIGHT_GRAY);
-
-			calculateRatios();
-			int slices = 1000;
-			boolean allowRestart = percentInfected.get(percentInfected.size() - 1) == 0.0;
-			if (percentCured.size() > slices)
+			long frameStart = renderThread ? System.nanoTime() : scheduler.beginFrame(), tickNanos = 1000000000L / ticksPerSecond;
+			handleKeys();
+			handleMouse();
+			accumulator += frameStart - previous;
+			previous = frameStart;
+			int ticks = 0;
+			if (maxSpeed)
 			{
-				percentCured.remove(0);
-				percentHealthy.remove(0);
-				percentInfected.remove(0);
-				percentDead.remove(0);
+				for (; ticks < renderEvery; ticks++)
+					tick();
+				accumulator = tickNanos;
 			}
-			for (int i = percentHealthy.size() - 1, count = 0; i >= 0 && i >= percentHealthy.size() - slices; i--, count++)
+			else
 			{
-				double y = 10.0, centerX = 10 - 20 * count / (double)slices - 1 / (double)slices / 2.0;
-				y = drawGraphSection(percentCured.get(i) * 20, new Color(170, 250, 200), centerX, y, slices);
-				y -= percentHealthy.get(i) * 20;
-				y = drawGraphSection(percentInfected.get(i) * 20, new Color(250, 170, 170), centerX, y, slices);
-				drawGraphSection(percentDead.get(i) * 20, new Color(245, 236, 176), centerX, y, slices);
+				while (accumulator >= tickNanos && ticks < MAX_TICKS_PER_FRAME)
+				{
+					tick();
+					accumulator -= tickNanos;
+					ticks++;
+				}
+				// drop the backlog if ticks cannot keep up, instead of spiraling
+				if (ticks == MAX_TICKS_PER_FRAME)
+					accumulator = Math.min(accumulator, tickNanos);
+			}
+			if (ticks > 0 || viewChanged)
+				publishSnapshot(maxSpeed ? 0 : tickNanos);
+			if (checkpointFile != null && frameStart - lastCheckpoint >= checkpointNanos && checkpointer.save(this, checkpointFile))
+				lastCheckpoint = frameStart;
+			if (latencyReportNanos > 0 && frameStart - lastLatencyReport >= latencyReportNanos)
+			{
+				reportLatency();
+				lastLatencyReport = frameStart;
 			}
+			viewChanged = false;
 
-			for (int i = 0; i < people.size(); i++)
+			if (renderThread)
+			{
+				if (!maxSpeed)
+					LockSupport.parkNanos(tickNanos - accumulator);
+			}
+			else
 			{
-				Person curr = people.get(i);
-				for (int j = i + 1; j < people.size(); j++)
-					curr.checkCollision(people.get(j));
-				checkWallCollisions(curr);
-				curr.updateViralState();
-				if (curr.getViralState() == 3)
-					dead.add(people.remove(i--));
-				curr.changePosition();
+				scheduler.endCompute(ticks);
+				boolean rendered = maxSpeed || scheduler.shouldRender();
+				if (rendered)
+					renderer.render(snapshots.acquire(), Math.min(1.0, accumulator / (double)tickNanos));
+				scheduler.endRender(rendered);
 			}
-			for (Wall curr : walls)
-				curr.draw();
-			for (Person curr : dead)
-				curr.draw();
-			for (Person curr : people)
-				curr.draw();
-			
-			if (allowRestart)
+
+			boolean allowRestart = isFinished();
+			if (allowRestart && !reported)
 			{
-				StdDraw.setPenColor(new Color(160, 255, 160));
-				StdDraw.filledRectangle(-5.0, 0.0, 2.0, 1.0);
-				StdDraw.setPenColor(new Color(40, 130, 40));
-				StdDraw.text(-5.0, 0.0, "Restart");
-				StdDraw.setPenColor(new Color(255, 160, 160));
-				StdDraw.filledRectangle(5.0, 0.0, 2.0, 1.0);
-				StdDraw.setPenColor(new Color(130, 40, 40));
-				StdDraw.text(5.0, 0.0, "End");
+				System.out.println(getOutcomeSummary());
+				reported = true;
 			}
-			if (StdDraw.isMousePressed() && allowRestart)
+			if (allowRestart && dragging && pressedButton)
 			{
 				double x = StdDraw.mouseX(), y = StdDraw.mouseY();
 				boolean restart = x >= -7 && x <= -3 && y >= -1 && y <= 1, end = x >= 3 && x <= 7 && y >= -1 && y <= 1;
-				if (restart)
-					new Simulation(numberOfPeople, infectRate, shelterInPlaceRate, deathRate, numRooms).runLoop();
 				if (restart || end)
 				{
-					numSimulations++;
-					totalPercentCured += percentCured.get(percentCured.size() - 1);
-					totalPercentDead += percentDead.get(percentDead.size() - 1);
-					totalPercentUninfected += percentHealthy.get(percentHealthy.size() - 1);
+					renderer.stop();
+					checkpointer.await();
+					stopTrajectory();
+					System.out.println("Tick latency: " + tickLatency);
+					renderer.copyFrameLatency(frameLatency);
+					System.out.println("Frame latency: " + frameLatency);
+					long last = history.getTotal() - 1;
+					finalCured.add(history.getCured(last));
+					finalDead.add(history.getDead(last));
+					finalUninfected.add(history.getHealthy(last));
+					peakInfected.add(peak / (double)numberOfPeople);
+					totalTickLatency.add(tickLatency);
+					totalFrameLatency.add(frameLatency);
+				}
+				if (end)
+				{
+					stopRecording();
+					profiler.unregister();
 					return;
 				}
+				if (restart)
+				{
+					// start over in place with a new seed, rather than in a new simulation (and a deeper runLoop)
+					reset(getConfig(), new Rng().nextLong());
+					publishSnapshot(0);
+					if (renderThread)
+						renderer.start();
+					reported = false;
+					previous = System.nanoTime();
+					accumulator = 0;
+				}
 			}
-			
-			StdDraw.show();
-			StdDraw.pause(20);
+
+			if (!renderThread)
+				scheduler.sync(!maxSpeed);
 		}
 	}
 
 	/**
-	 * Checks if the given person collides with any
-	 * walls in the simulation
-	 * @param p the person to check
+	 * Handles key presses that control the speed of the simulation
+	 * ('m' toggles max speed, '+' and '-' double and halve the tick rate,
+	 * 'f' toggles the frame rate display, 'd' toggles drawing people with sprites,
+	 * '0' zooms back out to the whole world, 'r' starts and stops recording frames,
+	 * 'k' saves a checkpoint to simulation.checkpoint (or the checkpoint file, if set),
+	 * 't' starts and stops recording a trajectory for Replay)
 	 */
-	public void checkWallCollisions(Person p)
+	private void handleKeys()
 	{
-		for (Wall currWall : walls)
-			if (currWall.checkCollision(p))
-				return;
+		while (StdDraw.hasNextKeyTyped())
+		{
+			char key = StdDraw.nextKeyTyped();
+			if (key == 'm')
+				maxSpeed = !maxSpeed;
+			else if (key == '+' || key == '=')
+				setTickRate(Math.min(ticksPerSecond * 2, 3200));
+			else if (key == '-')
+				setTickRate(ticksPerSecond / 2);
+			else if (key == 'f')
+				renderer.setShowFrameRate(!renderer.isShowingFrameRate());
+			else if (key == 'd')
+				renderer.setDrawSprites(!renderer.isDrawingSprites());
+			else if (key == 'r' && renderer.getRecorder() == null)
+			{
+				try
+				{
+					startRecording(new File("recording-" + System.currentTimeMillis()), FrameRecorder.Format.PNG);
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+			else if (key == 'r')
+			{
+				FrameRecorder recorder = stopRecording();
+				System.out.println("Recorded " + recorder.getWritten() + " frames to " + recorder.getDirectory()
+					+ " (" + recorder.getDropped() + " dropped)");
+			}
+			else if (key == 't' && trajectory == null)
+			{
+				try
+				{
+					startTrajectory(new File("trajectory-" + System.currentTimeMillis() + ".vstr"), 100);
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+			else if (key == 't')
+				stopTrajectory();
+			else if (key == 'k')
+				checkpointer.save(this, checkpointFile != null ? checkpointFile : new File("simulation.checkpoint"));
+			else if (key == '0')
+			{
+				viewport.reset();
+				viewChanged = true;
+			}
+		}
 	}
 
 	/**
-	 * Draws the given section of the background graph
-	 * @param amount the height of the current bar in the graph
-	 * @param fill the color to fill the bar
-	 * @param centerX the center x coordinate of the bar
-	 * @param topY the top y coordinate of the bar
-	 * @param slices the number of slices shown (to determine the width of the bar)
-	 * @return the y coordinate at the bottom of the bar
+	 * Handles the mouse moving the viewport: turning the wheel zooms in or
+	 * out around the mouse, and dragging pans. A press that starts on the
+	 * Restart or End button while they are showing clicks the button (see
+	 * runLoop()) instead of panning, and only such a press can click one
 	 */
-	public double drawGraphSection(double amount, Color fill, double centerX, double topY, int slices)
+	private void handleMouse()
 	{
-		if (amount == 0.0)
-			return topY;
-		StdDraw.setPenColor(fill);
-		StdDraw.filledRectangle(centerX, topY - amount / 2, 20 / (double)slices / 2.0, amount / 2);
-		return topY - amount;
+		double x = StdDraw.mouseX(), y = StdDraw.mouseY(), rotation = StdDraw.nextWheelRotation();
+		if (rotation != 0)
+		{
+			viewport.zoom(Math.pow(ZOOM_PER_NOTCH, rotation), x, y);
+			viewChanged = true;
+		}
+		boolean pressed = StdDraw.isMousePressed();
+		if (pressed && !dragging)
+			pressedButton = isFinished() && isOnButton(x, y);
+		if (pressed && dragging && !pressedButton && (x != dragX || y != dragY))
+		{
+			viewport.pan(x - dragX, y - dragY);
+			viewChanged = true;
+		}
+		dragging = pressed;
+		dragX = x;
+		dragY = y;
+	}
+
+	/**
+	 * Determines if a point is on the Restart or End button (which are only
+	 * drawn once the run has finished)
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return whether or not the point is on either button
+	 */
+	private static boolean isOnButton(double x, double y)
+	{
+		return y >= -1 && y <= 1 && (x >= -7 && x <= -3 || x >= 3 && x <= 7);
+	}
+
+	/**
+	 * Advances the simulation by a single tick: records the ratios for the
+	 * graph, then handles collisions, viral states, and movement
+	 */
+	public void tick()
+	{
+		long start = System.nanoTime(), lap = profiler.beginTick();
+		int pairs = 0, collisions = 0, infections = 0;
+		SimulationEvents.Tick event = SimulationEvents.isTickEnabled() ? new SimulationEvents.Tick() : null;
+		if (event != null)
+			event.begin();
+		calculateRatios();
+		lap = profiler.lap(TickProfiler.Phase.STATS, lap);
+
+		// nobody has moved yet when they are checked against the people after them, so only
+		// people in neighbouring cells of the grid can touch; they are checked in list order
+		boolean pairLoop = engine == Engine.PAIR_LOOP;
+		if (!pairLoop)
+			grid.build(people);
+		ContactRecorder.Buffer contactBuffer = contacts == null ? null : contacts.buffer();
+		// the pair loop instead checks everyone after the person in the list, as the original engine did
+		for (int i = 0, k = 0; i < people.size(); i++, k++)
+		{
+			Person curr = people.get(i);
+			int found = pairLoop ? people.size() - i - 1 : grid.findNeighbors(k);
+			pairs += found;
+			lap = profiler.lap(TickProfiler.Phase.BROAD_PHASE, lap);
+			for (int n = 0; n < found; n++)
+			{
+				Person other = pairLoop ? people.get(i + 1 + n) : grid.get(grid.getFound(n));
+				int contact = curr.checkCollision(other);
+				if (contact == Person.NO_CONTACT)
+					continue;
+				collisions++;
+				if (contact == Person.INFECTED)
+					tree.infect(other.getId(), curr.getId(), tickCount);
+				else if (contact == Person.INFECTED_OTHER)
+					tree.infect(curr.getId(), other.getId(), tickCount);
+				if (contact != Person.CONTACT)
+					infections++;
+				if (contactBuffer != null)
+					contactBuffer.add(tickCount, curr, other, contact);
+			}
+			lap = profiler.lap(TickProfiler.Phase.NARROW_PHASE, lap);
+			checkWallCollisions(curr);
+			lap = profiler.lap(TickProfiler.Phase.WALLS, lap);
+			boolean infectious = curr.getViralState() == 1;
+			curr.updateViralState();
+			if (infectious && curr.getViralState() != 1)
+				tree.resolve(curr.getId(), tickCount);
+			if (curr.getViralState() == 3)
+			{
+				dead.add(people.remove(i--));
+				if (SimulationEvents.isDeathEnabled())
+				{
+					SimulationEvents.Death death = new SimulationEvents.Death();
+					death.tick = tickCount;
+					death.id = curr.getId();
+					death.infector = tree.getInfector(curr.getId());
+					death.commit();
+				}
+			}
+			lap = profiler.lap(TickProfiler.Phase.DISEASE, lap);
+			curr.changePosition();
+			lap = profiler.lap(TickProfiler.Phase.MOVE, lap);
+		}
+
+		// the dead fade in the order that they died, so only the tail can still be fading
+		while (firstFading < dead.size() && !dead.get(firstFading).isFading())
+			firstFading++;
+		for (int i = firstFading; i < dead.size(); i++)
+			dead.get(i).fade();
+		lap = profiler.lap(TickProfiler.Phase.DISEASE, lap);
+		tickCount++;
+		if (outcome == Outcome.RUNNING)
+			outcome = findOutcome();
+		long nanos = System.nanoTime() - start;
+		tickLatency.record(nanos);
+		if (exporter != null)
+			export(exporter.hasTiming() ? nanos : 0);
+		if (trajectory != null)
+			recordTrajectory();
+		profiler.endTick(profiler.lap(TickProfiler.Phase.OUTPUT, lap), pairs, collisions, infections);
+		commitEvents(event, pairs, collisions, infections);
+	}
+
+	/**
+	 * Commits the flight recorder events for the tick that just ran, if they are enabled
+	 * @param event the tick's event, begun at the start of the tick (null if tick events are disabled)
+	 * @param pairs the number of pairs of people tested for a collision
+	 * @param collisions the number of collisions between two people
+	 * @param infections the number of people infected by someone else
+	 */
+	private void commitEvents(SimulationEvents.Tick event, int pairs, int collisions, int infections)
+	{
+		if (event != null && event.shouldCommit())
+		{
+			event.tick = tickCount - 1;
+			event.healthy = counts[0];
+			event.infected = counts[1];
+			event.cured = counts[2];
+			event.dead = counts[3];
+			event.pairsTested = pairs;
+			event.collisions = collisions;
+			event.infections = infections;
+			event.commit();
+		}
+		if (infections >= SimulationEvents.BURST_INFECTIONS && SimulationEvents.isInfectionBurstEnabled())
+		{
+			SimulationEvents.InfectionBurst burst = new SimulationEvents.InfectionBurst();
+			burst.tick = tickCount - 1;
+			burst.infections = infections;
+			burst.infected = counts[1];
+			burst.commit();
+		}
+	}
+
+	/**
+	 * Appends the counts from the start of this tick to the time series file,
+	 * stopping the export (with a message) if the file cannot be written
+	 * @param tickNanos how long the tick took, in nanoseconds (0 if not timed)
+	 */
+	private void export(long tickNanos)
+	{
+		try
+		{
+			exporter.append(counts[0], counts[1], counts[2], counts[3], tickNanos);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			exporter = null;
+		}
+	}
+
+	/**
+	 * Continues exporting into the given file as a new replica, if there is one
+	 * @param exporter the file being exported to, or null
+	 */
+	private void exportTo(TimeSeriesWriter exporter)
+	{
+		try
+		{
+			setExporter(exporter);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Determines if any part of a person, at either their previous or current
+	 * position, is inside the viewport
+	 * @param p the person
+	 * @return whether or not the person might be seen
+	 */
+	private boolean isVisible(Person p)
+	{
+		return viewport.overlaps(p.getX(), p.getY(), p.getRadius()) || viewport.overlaps(p.getPrevX(), p.getPrevY(), p.getRadius());
+	}
+
+	/**
+	 * Determines if the virus has run its course (nobody is infected anymore)
+	 * @return whether or not the simulation is over
+	 */
+	public boolean isOver()
+	{
+		return !history.isEmpty() && history.getInfected(history.getTotal() - 1) == 0.0;
+	}
+
+	/**
+	 * Sets when a run finishes other than by nobody being infected (which always finishes it)
+	 * @param steadyTicks the number of ticks that the counts of every viral state must stay
+	 *                    the same for to finish the run (0 never finishes it this way)
+	 * @param maxTicks the number of ticks after which the run finishes (0 for no limit)
+	 */
+	public void setTermination(int steadyTicks, long maxTicks)
+	{
+		this.steadyTicks = Math.max(0, steadyTicks);
+		this.maxTicks = Math.max(0, maxTicks);
+	}
+
+	/**
+	 * Works out whether the run has just finished, from the counts at the start of the last tick
+	 * @return why the run finished, or RUNNING if it has not
+	 */
+	private Outcome findOutcome()
+	{
+		if (counts[1] == 0)
+			return Outcome.EXTINCT;
+		if (steadyTicks > 0 && unchangedTicks >= steadyTicks)
+			return Outcome.STEADY;
+		if (maxTicks > 0 && tickCount >= maxTicks)
+			return Outcome.TICK_CAP;
+		return Outcome.RUNNING;
+	}
+
+	/**
+	 * Returns why the run finished. Once finished, the simulation can still be
+	 * ticked (people keep moving), but the outcome does not change
+	 * @return the outcome, or RUNNING if the run has not finished
+	 */
+	public Outcome getOutcome()
+	{
+		return outcome;
+	}
+
+	/**
+	 * Determines if the run has finished, by any of the criteria of setTermination()
+	 * @return whether or not the run has finished
+	 */
+	public boolean isFinished()
+	{
+		return outcome != Outcome.RUNNING;
+	}
+
+	/**
+	 * Runs the simulation without a window until it finishes
+	 * @return why it finished
+	 */
+	public Outcome run()
+	{
+		while (outcome == Outcome.RUNNING)
+			tick();
+		return outcome;
+	}
+
+	/**
+	 * Describes how the run finished
+	 * @return eg. "EXTINCT at tick 1393: 0.0% uninfected, 69.3% cured, 30.7% dead, peak 99.0% infected"
+	 */
+	public String getOutcomeSummary()
+	{
+		double total = numberOfPeople / 100.0;
+		return String.format("%s at tick %d: %.1f%% uninfected, %.1f%% cured, %.1f%% dead, peak %.1f%% infected", outcome,
+			tickCount, counts[0] / total, counts[2] / total, counts[3] / total, peak / total);
+	}
+
+	/**
+	 * Returns the number of ticks run so far
+	 * @return the tick count
+	 */
+	public long getTickCount()
+	{
+		return tickCount;
+	}
+
+	/**
+	 * Returns the number of people who were in a viral state at the start of the last tick
+	 * @param viralState the viral state (0 uninfected, 1 infected, 2 cured, 3 dead)
+	 * @return the number of people
+	 */
+	public int getCount(int viralState)
+	{
+		return counts[viralState];
+	}
+
+	/**
+	 * Returns the most people who have been infected at once, counted at the start of each tick
+	 * @return the number of people
+	 */
+	public int getPeakInfected()
+	{
+		return peak;
+	}
+
+	/**
+	 * Returns the number of people still alive, who are each updated every tick
+	 * @return the number of living people
+	 */
+	public int getLiving()
+	{
+		return people.size();
+	}
+
+	/**
+	 * Copies the current state of the simulation into a snapshot and
+	 * publishes it for the renderer
+	 * @param tickNanos the length of a tick in nanoseconds, used to interpolate
+	 *                  positions (0 if positions should not be interpolated)
+	 */
+	private void publishSnapshot(long tickNanos)
+	{
+		Snapshot snapshot = snapshots.getBack();
+		snapshot.clear(tickCount, isFinished());
+		if (wallArray == null || wallArray.length != walls.size())
+			wallArray = walls.toArray(new Wall[walls.size()]);
+		snapshot.setWalls(wallArray);
+		snapshot.setViewport(viewport);
+		if (viewport.showsWholeWorld())
+		{
+			int deadStart = Math.min(renderer.getBakedDead(), dead.size());
+			for (int i = deadStart; i < dead.size(); i++)
+				snapshot.add(dead.get(i));
+			snapshot.markDead(deadStart, firstFading);
+			for (int i = 0; i < people.size(); i++)
+				snapshot.add(people.get(i));
+		}
+		else
+		{
+			// only people inside the viewport are copied; the living are found through the grid, which
+			// only the grid engine builds every tick, so it is built here for the others
+			for (int i = 0; i < dead.size(); i++)
+				if (isVisible(dead.get(i)))
+					snapshot.add(dead.get(i));
+			snapshot.markDead(0, 0);
+			if (engine != Engine.GRID)
+				grid.build(people);
+			int found = grid.findInside(viewport.getMinX() - CULL_MARGIN, viewport.getMinY() - CULL_MARGIN,
+				viewport.getMaxX() + CULL_MARGIN, viewport.getMaxY() + CULL_MARGIN);
+			for (int n = 0; n < found; n++)
+			{
+				Person p = grid.get(grid.getFound(n));
+				// people who died this tick are still in a grid built by the tick, but were already copied with the dead
+				if (p.getViralState() != 3 && isVisible(p))
+					snapshot.add(p);
+			}
+		}
+		snapshot.setHistory(history, renderer.getGraphColumns());
+		snapshot.setSpread(tree.getRecentR(tickCount), tree.getRecentGenerationInterval(tickCount));
+		snapshot.setTiming(System.nanoTime(), tickNanos);
+		snapshots.publish();
+	}
+
+	/**
+	 * Checks if the given person collides with any
+	 * walls in the simulation
+	 * @param p the person to check
+	 */
+	public void checkWallCollisions(Person p)
+	{
+		for (int i = 0; i < walls.size(); i++)
+			if (walls.get(i).checkCollision(p))
+				return;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/**
+ * SimulationConfig.java
+ *
+ * The parameters that decide what a simulation is, apart from its
+ * seed: the number of people, the rates of the virus, and the
+ * number of rooms. A Simulation can be created from one, or reset
+ * in place to one, so that a worker running many replicas keeps
+ * a single instance instead of allocating a new one for each.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+public class SimulationConfig
+{
+	private final int people, rooms;
+	private final double infectRate, shelterInPlaceRate, deathRate;
+
+	/**
+	 * Instantiates a SimulationConfig object
+	 * @param people the number of people in the simulation
+	 * @param infectRate the infection rate of the virus
+	 * @param shelterInPlaceRate the fraction of people sheltering-in-place
+	 * @param deathRate the fraction of people who die from the virus
+	 * @param rooms the number of public, enclosed spaces in the simulation
+	 */
+	public SimulationConfig(int people, double infectRate, double shelterInPlaceRate, double deathRate, int rooms)
+	{
+		this.people = people;
+		this.infectRate = infectRate;
+		this.shelterInPlaceRate = shelterInPlaceRate;
+		this.deathRate = deathRate;
+		this.rooms = rooms;
+	}
+
+	/**
+	 * Returns the number of people in the simulation
+	 * @return the number of people
+	 */
+	public int getPeople()
+	{
+		return people;
+	}
+
+	/**
+	 * Returns the infection rate of the virus
+	 * @return the infection rate
+	 */
+	public double getInfectRate()
+	{
+		return infectRate;
+	}
+
+	/**
+	 * Returns the fraction of people sheltering-in-place
+	 * @return the shelter-in-place rate
+	 */
+	public double getShelterInPlaceRate()
+	{
+		return shelterInPlaceRate;
+	}
+
+	/**
+	 * Returns the fraction of people who die from the virus
+	 * @return the death rate
+	 */
+	public double getDeathRate()
+	{
+		return deathRate;
+	}
+
+	/**
+	 * Returns the number of public, enclosed spaces in the simulation
+	 * @return the number of rooms
+	 */
+	public int getRooms()
+	{
+		return rooms;
+	}
+
+	/**
+	 * Returns the parameters in the order the constructor takes them
+	 * @return the parameters, eg. "500 people, infect rate 0.6, shelter-in-place rate 0.2, death rate 0.3, 3 rooms"
+	 */
+	public String toString()
+	{
+		return people + " people, infect rate " + infectRate + ", shelter-in-place rate " + shelterInPlaceRate
+			+ ", death rate " + deathRate + ", " + rooms + " rooms";
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * SimulationEvents.java
+ *
+ * The Java Flight Recorder events that the simulation emits, so
+ * that what the simulation was doing can be lined up with garbage
+ * collection, allocation, and lock events in the same recording.
+ * Every event is disabled by default. The simulation asks whether
+ * an event is enabled before creating it, so a disabled event
+ * costs nothing (not even an allocation in code that the JIT has
+ * not optimized yet) unless a recording turns it on: either from
+ * JDK Mission Control, or with a settings file (a copy of
+ * profile.jfc that sets "enabled" to true for the virus.* events)
+ * passed as "java -XX:StartFlightRecording:settings=virus.jfc,
+ * filename=run.jfr Simulation".
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+public class SimulationEvents
+{
+	/** The number of infections in one tick that counts as a burst */
+	public static final int BURST_INFECTIONS = 10;
+
+	/**
+	 * Instances that are never committed, used only to ask whether each kind
+	 * of event is enabled. Creating the first event registers the event
+	 * classes, which takes a few hundred milliseconds, so they are only
+	 * created once the flight recorder has been started (nothing can be
+	 * enabled before then), and a run that is never recorded starts quickly
+	 */
+	private static class Probes
+	{
+		private static final Tick TICK = new Tick();
+		private static final InfectionBurst INFECTION_BURST = new InfectionBurst();
+		private static final Death DEATH = new Death();
+	}
+
+	/**
+	 * Returns whether tick events are being recorded
+	 * @return whether Tick is enabled
+	 */
+	public static boolean isTickEnabled()
+	{
+		return FlightRecorder.isInitialized() && Probes.TICK.isEnabled();
+	}
+
+	/**
+	 * Returns whether infection burst events are being recorded
+	 * @return whether InfectionBurst is enabled
+	 */
+	public static boolean isInfectionBurstEnabled()
+	{
+		return FlightRecorder.isInitialized() && Probes.INFECTION_BURST.isEnabled();
+	}
+
+	/**
+	 * Returns whether death events are being recorded
+	 * @return whether Death is enabled
+	 */
+	public static boolean isDeathEnabled()
+	{
+		return FlightRecorder.isInitialized() && Probes.DEATH.isEnabled();
+	}
+
+	/**
+	 * One tick of the simulation, lasting as long as the tick took
+	 */
+	@Name("virus.Tick")
+	@Label("Tick")
+	@Category("Virus Simulation")
+	@Description("One tick of the simulation")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class Tick extends Event
+	{
+		@Label("Tick")
+		public long tick;
+
+		@Label("Uninfected")
+		public int healthy;
+
+		@Label("Infected")
+		public int infected;
+
+		@Label("Cured")
+		public int cured;
+
+		@Label("Dead")
+		public int dead;
+
+		@Label("Pairs Tested")
+		public int pairsTested;
+
+		@Label("Collisions")
+		public int collisions;
+
+		@Label("Infections")
+		public int infections;
+	}
+
+	/**
+	 * A tick in which at least BURST_INFECTIONS people were infected
+	 */
+	@Name("virus.InfectionBurst")
+	@Label("Infection Burst")
+	@Category("Virus Simulation")
+	@Description("A tick in which many people were infected")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class InfectionBurst extends Event
+	{
+		@Label("Tick")
+		public long tick;
+
+		@Label("Infections")
+		public int infections;
+
+		@Label("Infected")
+		@Description("The number of people infected at the start of the tick")
+		public int infected;
+	}
+
+	/**
+	 * A person dying
+	 */
+	@Name("virus.Death")
+	@Label("Death")
+	@Category("Virus Simulation")
+	@Description("A person dying of the virus")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class Death extends Event
+	{
+		@Label("Tick")
+		public long tick;
+
+		@Label("Person")
+		public int id;
+
+		@Label("Infector")
+		@Description("Who infected the person (-1 if they were infected from the start)")
+		public int infector;
+	}
+
+	/**
+	 * A checkpoint being written, lasting as long as the background write took
+	 */
+	@Name("virus.Checkpoint")
+	@Label("Checkpoint")
+	@Category("Virus Simulation")
+	@Description("A checkpoint being written to disk")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class Checkpoint extends Event
+	{
+		@Label("File")
+		public String file;
+
+		@Label("Size")
+		@DataAmount
+		public long bytes;
+
+		@Label("Copy Time")
+		@Description("How long the simulation thread spent copying its state")
+		@Timespan
+		public long copyNanos;
+
+		@Label("Succeeded")
+		public boolean succeeded;
+	}
+}
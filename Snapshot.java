@@ -0,0 +1,402 @@
+/**
+ * Snapshot.java
+ *
+ * Holds a copy of everything needed to draw one tick of the
+ * simulation: the walls, the previous and current position,
+ * radius, viral state, and fade of every living person and
+ * of the dead people that the renderer has not cached yet
+ * (dead people first, so that they are drawn underneath the
+ * living), along with the slices of history that the
+ * background graph has not drawn yet. Positions and radii
+ * are stored in canvas coordinates, already mapped through
+ * the viewport that was current when the snapshot was taken,
+ * so people outside of the viewport can be left out entirely.
+ * Snapshots are
+ * filled by the simulation thread and passed to the renderer
+ * through a TripleBuffer; once published, a snapshot is not
+ * changed until the renderer has handed it back.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.Arrays;
+
+public class Snapshot
+{
+	private int size, historySize, deadStart, deadCount, settled;
+	private Wall[] walls;
+	private final Viewport viewport;
+	private long historyStart;
+	private double[] prevX, prevY, x, y, radius;
+	private int[] viralState, alpha;
+	private double[] healthy, infected, cured, dead;
+	private boolean allowRestart;
+	private long tick, publishNanos, tickNanos;
+	private double reproduction = Double.NaN, generationInterval = Double.NaN;
+
+	/**
+	 * Instantiates an empty Snapshot object
+	 * @param slices the most slices of history that the snapshot can hold
+	 */
+	public Snapshot(int slices)
+	{
+		prevX = new double[16];
+		prevY = new double[16];
+		x = new double[16];
+		y = new double[16];
+		radius = new double[16];
+		viralState = new int[16];
+		alpha = new int[16];
+		healthy = new double[slices];
+		infected = new double[slices];
+		cured = new double[slices];
+		dead = new double[slices];
+		viewport = new Viewport();
+	}
+
+	/**
+	 * Empties the snapshot so that it can be filled with a new tick
+	 * @param tick the tick that the snapshot is of
+	 * @param allowRestart whether or not the restart and end buttons should be shown
+	 */
+	public void clear(long tick, boolean allowRestart)
+	{
+		this.tick = tick;
+		this.allowRestart = allowRestart;
+		size = 0;
+		deadStart = deadCount = settled = 0;
+		historyStart = 0;
+		historySize = 0;
+		reproduction = generationInterval = Double.NaN;
+	}
+
+	/**
+	 * Sets the part of the world that the snapshot shows; this must be
+	 * called before any people are added
+	 * @param viewport the viewport (which is copied)
+	 */
+	public void setViewport(Viewport viewport)
+	{
+		this.viewport.set(viewport);
+	}
+
+	/**
+	 * Returns the part of the world that the snapshot shows
+	 * @return the viewport
+	 */
+	public Viewport getViewport()
+	{
+		return viewport;
+	}
+
+	/**
+	 * Adds a copy of the given person to the snapshot
+	 * @param p the person to add
+	 */
+	public void add(Person p)
+	{
+		add(p.getPrevX(), p.getPrevY(), p.getX(), p.getY(), p.getRadius(), p.getViralState(), p.getAlpha());
+	}
+
+	/**
+	 * Adds a person to the snapshot
+	 * @param prevX the x position of the person at the previous tick
+	 * @param prevY the y position of the person at the previous tick
+	 * @param x the x position of the person
+	 * @param y the y position of the person
+	 * @param radius the radius of the person
+	 * @param viralState the viral state of the person
+	 * @param alpha how faded the person is (0 to 255)
+	 */
+	public void add(double prevX, double prevY, double x, double y, double radius, int viralState, int alpha)
+	{
+		if (size == this.x.length)
+		{
+			int capacity = size * 2;
+			this.prevX = Arrays.copyOf(this.prevX, capacity);
+			this.prevY = Arrays.copyOf(this.prevY, capacity);
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.radius = Arrays.copyOf(this.radius, capacity);
+			this.viralState = Arrays.copyOf(this.viralState, capacity);
+			this.alpha = Arrays.copyOf(this.alpha, capacity);
+		}
+		this.prevX[size] = viewport.toCanvasX(prevX);
+		this.prevY[size] = viewport.toCanvasY(prevY);
+		this.x[size] = viewport.toCanvasX(x);
+		this.y[size] = viewport.toCanvasY(y);
+		this.radius[size] = viewport.toCanvasLength(radius);
+		this.viralState[size] = viralState;
+		this.alpha[size] = alpha;
+		size++;
+	}
+
+	/**
+	 * Marks the people added so far as the dead, for the renderer's cache of
+	 * dead people who have finished fading
+	 * @param deadStart the position in the list of the dead of the first dead person added
+	 * @param settled the number of dead people (from the start of the list) who have finished fading
+	 */
+	public void markDead(int deadStart, int settled)
+	{
+		this.deadStart = deadStart;
+		this.settled = settled;
+		deadCount = size;
+	}
+
+	/**
+	 * Sets the walls of the simulation
+	 * @param walls the walls (which must not be changed after this)
+	 */
+	public void setWalls(Wall[] walls)
+	{
+		this.walls = walls;
+	}
+
+	/**
+	 * Copies the slices of history from the given entry onward into the
+	 * snapshot (or only the most recent slices, if there are too many)
+	 * @param history the history of the simulation
+	 * @param from the number of the first entry that is needed
+	 */
+	public void setHistory(History history, long from)
+	{
+		historyStart = Math.max(from, Math.max(history.getFirst(), history.getTotal() - healthy.length));
+		historySize = (int)Math.max(0, history.getTotal() - historyStart);
+		for (int i = 0; i < historySize; i++)
+		{
+			healthy[i] = history.getHealthy(historyStart + i);
+			infected[i] = history.getInfected(historyStart + i);
+			cured[i] = history.getCured(historyStart + i);
+			dead[i] = history.getDead(historyStart + i);
+		}
+	}
+
+	/**
+	 * Sets the live estimates of how fast the virus is spreading
+	 * @param reproduction the recent reproduction number R(t), or NaN if unknown
+	 * @param generationInterval the recent generation interval in ticks, or NaN if unknown
+	 */
+	public void setSpread(double reproduction, double generationInterval)
+	{
+		this.reproduction = reproduction;
+		this.generationInterval = generationInterval;
+	}
+
+	/**
+	 * Returns the recent reproduction number R(t)
+	 * @return R(t), or NaN if unknown
+	 */
+	public double getReproduction()
+	{
+		return reproduction;
+	}
+
+	/**
+	 * Returns the recent generation interval
+	 * @return the interval in ticks, or NaN if unknown
+	 */
+	public double getGenerationInterval()
+	{
+		return generationInterval;
+	}
+
+	/**
+	 * Records when the snapshot was published, for interpolation
+	 * @param publishNanos the time the snapshot was published, in nanoseconds
+	 * @param tickNanos the length of a tick in nanoseconds (0 if positions should not be interpolated)
+	 */
+	public void setTiming(long publishNanos, long tickNanos)
+	{
+		this.publishNanos = publishNanos;
+		this.tickNanos = tickNanos;
+	}
+
+	/**
+	 * Returns how far between the previous and current tick people should be
+	 * drawn at the given time
+	 * @param now the current time in nanoseconds
+	 * @return the interpolation amount (0 to 1)
+	 */
+	public double getInterpolation(long now)
+	{
+		if (tickNanos <= 0)
+			return 1.0;
+		return Math.max(0.0, Math.min(1.0, (now - publishNanos) / (double)tickNanos));
+	}
+
+	/**
+	 * Returns the number of people in the snapshot
+	 * @return the number of people
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the x position of a person, interpolated between ticks
+	 * @param i the index of the person
+	 * @param interpolation how far between the previous and current tick (0 to 1)
+	 * @return the x position on the canvas
+	 */
+	public double getX(int i, double interpolation)
+	{
+		return prevX[i] + (x[i] - prevX[i]) * interpolation;
+	}
+
+	/**
+	 * Returns the y position of a person, interpolated between ticks
+	 * @param i the index of the person
+	 * @param interpolation how far between the previous and current tick (0 to 1)
+	 * @return the y position on the canvas
+	 */
+	public double getY(int i, double interpolation)
+	{
+		return prevY[i] + (y[i] - prevY[i]) * interpolation;
+	}
+
+	/**
+	 * Returns the radius of a person
+	 * @param i the index of the person
+	 * @return the radius on the canvas
+	 */
+	public double getRadius(int i)
+	{
+		return radius[i];
+	}
+
+	/**
+	 * Returns the viral state of a person
+	 * @param i the index of the person
+	 * @return the viral state
+	 */
+	public int getViralState(int i)
+	{
+		return viralState[i];
+	}
+
+	/**
+	 * Returns the opacity of a person
+	 * @param i the index of the person
+	 * @return the alpha value (0 to 255)
+	 */
+	public int getAlpha(int i)
+	{
+		return alpha[i];
+	}
+
+	/**
+	 * Returns the walls of the simulation
+	 * @return the walls
+	 */
+	public Wall[] getWalls()
+	{
+		return walls;
+	}
+
+	/**
+	 * Returns the position in the list of the dead of the first dead person in the snapshot
+	 * @return the position of the first dead person
+	 */
+	public int getDeadStart()
+	{
+		return deadStart;
+	}
+
+	/**
+	 * Returns the number of dead people in the snapshot, who come before the living
+	 * @return the number of dead people
+	 */
+	public int getDeadCount()
+	{
+		return deadCount;
+	}
+
+	/**
+	 * Returns the number of dead people (from the start of the list of the dead)
+	 * who have finished fading and will never change again
+	 * @return the number of dead people who are done fading
+	 */
+	public int getSettled()
+	{
+		return settled;
+	}
+
+	/**
+	 * Returns the number of the first slice of history in the snapshot
+	 * @return the number of the first slice (counting from the start of the simulation)
+	 */
+	public long getHistoryStart()
+	{
+		return historyStart;
+	}
+
+	/**
+	 * Returns the number of slices of history in the snapshot
+	 * @return the number of slices
+	 */
+	public int getHistorySize()
+	{
+		return historySize;
+	}
+
+	/**
+	 * Returns the fraction of people uninfected in a slice of history
+	 * @param i the index of the slice in the snapshot (0 is the oldest)
+	 * @return the fraction uninfected
+	 */
+	public double getHealthy(int i)
+	{
+		return healthy[i];
+	}
+
+	/**
+	 * Returns the fraction of people infected in a slice of history
+	 * @param i the index of the slice in the snapshot (0 is the oldest)
+	 * @return the fraction infected
+	 */
+	public double getInfected(int i)
+	{
+		return infected[i];
+	}
+
+	/**
+	 * Returns the fraction of people cured in a slice of history
+	 * @param i the index of the slice in the snapshot (0 is the oldest)
+	 * @return the fraction cured
+	 */
+	public double getCured(int i)
+	{
+		return cured[i];
+	}
+
+	/**
+	 * Returns the fraction of people dead in a slice of history
+	 * @param i the index of the slice in the snapshot (0 is the oldest)
+	 * @return the fraction dead
+	 */
+	public double getDead(int i)
+	{
+		return dead[i];
+	}
+
+	/**
+	 * Returns whether or not the restart and end buttons should be shown
+	 * @return whether or not restarting is allowed
+	 */
+	public boolean allowsRestart()
+	{
+		return allowRestart;
+	}
+
+	/**
+	 * Returns the tick that the snapshot is of
+	 * @return the tick number
+	 */
+	public long getTick()
+	{
+		return tick;
+	}
+}
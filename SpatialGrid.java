@@ -0,0 +1,221 @@
+/**
+ * SpatialGrid.java
+ *
+ * A uniform grid over the world that answers "who is near here"
+ * without looking at everyone. It is rebuilt from scratch each
+ * tick with a counting sort of people by cell, so building costs
+ * time proportional to the number of people and allocates nothing
+ * once its arrays are big enough. Cells are never smaller than
+ * the widest person, so two people can only touch if they are in
+ * the same or neighbouring cells. People are numbered by their
+ * position in the list the grid was built from, and queries
+ * return those numbers in increasing order, so callers can visit
+ * them in the same order as a plain loop over the list.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class SpatialGrid
+{
+	private Person[] items;
+	private int size, columns;
+	private double cellSize;
+	private int[] cellOf, cellStart, cursor, order, found, merged;
+	private final int[] runStart, runEnd;
+	private int foundCount, runs;
+
+	/**
+	 * Instantiates an empty SpatialGrid object
+	 */
+	public SpatialGrid()
+	{
+		items = new Person[0];
+		cellOf = new int[0];
+		order = new int[0];
+		cellStart = new int[2];
+		cursor = new int[1];
+		found = new int[16];
+		merged = new int[16];
+		runStart = new int[9];
+		runEnd = new int[9];
+	}
+
+	/**
+	 * Rebuilds the grid from the current positions of the given people
+	 * @param people the people to put in the grid
+	 */
+	public void build(ArrayList<Person> people)
+	{
+		size = people.size();
+		if (items.length < size)
+		{
+			items = new Person[size];
+			cellOf = new int[size];
+			order = new int[size];
+			// a query never finds more people than there are, so it never has to grow these while people crowd together
+			found = new int[size];
+			merged = new int[size];
+		}
+		double maxRadius = 0.0;
+		for (int i = 0; i < size; i++)
+		{
+			items[i] = people.get(i);
+			maxRadius = Math.max(maxRadius, items[i].getRadius());
+		}
+
+		// about two people per cell, but no cell narrower than the widest person
+		int most = maxRadius > 0 ? (int)(Viewport.WORLD / maxRadius) : 1;
+		columns = Math.max(1, Math.min(most, (int)Math.sqrt(size / 2.0)));
+		cellSize = 2 * Viewport.WORLD / columns;
+		int cells = columns * columns;
+		if (cellStart.length < cells + 1)
+		{
+			cellStart = new int[cells + 1];
+			cursor = new int[cells];
+		}
+		Arrays.fill(cellStart, 0, cells + 1, 0);
+		for (int i = 0; i < size; i++)
+		{
+			cellOf[i] = column(items[i].getY()) * columns + column(items[i].getX());
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int cell = 0; cell < cells; cell++)
+			cellStart[cell + 1] += cellStart[cell];
+		// filling in increasing order keeps each cell's people in increasing order
+		System.arraycopy(cellStart, 0, cursor, 0, cells);
+		for (int i = 0; i < size; i++)
+			order[cursor[cellOf[i]]++] = i;
+	}
+
+	/**
+	 * Returns the column (or row) of the grid holding the given position
+	 * @param position an x or y position in the world
+	 * @return the column, clamped to the grid
+	 */
+	private int column(double position)
+	{
+		return Math.max(0, Math.min(columns - 1, (int)Math.floor((position + Viewport.WORLD) / cellSize)));
+	}
+
+	/**
+	 * Returns the number of people in the grid
+	 * @return the number of people
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns a person in the grid
+	 * @param index the number of the person (their position in the list the grid was built from)
+	 * @return the person
+	 */
+	public Person get(int index)
+	{
+		return items[index];
+	}
+
+	/**
+	 * Finds the people after the given one (in the list the grid was built
+	 * from) who are in the same or a neighbouring cell, and so might be
+	 * touching them
+	 * @param index the number of the person
+	 * @return the number of people found (see getFound)
+	 */
+	public int findNeighbors(int index)
+	{
+		int row = cellOf[index] / columns, column = cellOf[index] % columns;
+		foundCount = runs = 0;
+		for (int r = Math.max(0, row - 1); r <= Math.min(columns - 1, row + 1); r++)
+			for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++)
+				collect(r * columns + c, index);
+		mergeRuns();
+		return foundCount;
+	}
+
+	/**
+	 * Finds the people in every cell that overlaps the given rectangle
+	 * (which may include some people just outside of it)
+	 * @param minX the left edge of the rectangle
+	 * @param minY the bottom edge of the rectangle
+	 * @param maxX the right edge of the rectangle
+	 * @param maxY the top edge of the rectangle
+	 * @return the number of people found (see getFound)
+	 */
+	public int findInside(double minX, double minY, double maxX, double maxY)
+	{
+		foundCount = runs = 0;
+		for (int r = column(minY); r <= column(maxY); r++)
+			for (int c = column(minX); c <= column(maxX); c++)
+				collect(r * columns + c, -1);
+		if (runs > runStart.length)
+			Arrays.sort(found, 0, foundCount);
+		else
+			mergeRuns();
+		return foundCount;
+	}
+
+	/**
+	 * Returns one of the people found by the last query, in increasing order
+	 * @param k which of the people found (from 0 to the number found - 1)
+	 * @return the number of the person
+	 */
+	public int getFound(int k)
+	{
+		return found[k];
+	}
+
+	/**
+	 * Adds the people in a cell that come after the given person to the results
+	 * @param cell the cell
+	 * @param after only people numbered higher than this are added
+	 */
+	private void collect(int cell, int after)
+	{
+		int start = foundCount;
+		for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++)
+		{
+			if (order[i] <= after)
+				continue;
+			if (foundCount == found.length)
+				found = Arrays.copyOf(found, foundCount * 2);
+			found[foundCount++] = order[i];
+		}
+		if (runs < runStart.length)
+		{
+			runStart[runs] = start;
+			runEnd[runs] = foundCount;
+		}
+		runs++;
+	}
+
+	/**
+	 * Puts the people found in increasing order by merging the runs added by
+	 * each cell (which are already in increasing order). Arrays.sort() would
+	 * spot the runs too, but it allocates a buffer to merge them into
+	 */
+	private void mergeRuns()
+	{
+		if (runs <= 1)
+			return;
+		if (merged.length < foundCount)
+			merged = new int[found.length];
+		// runStart[run] moves along each run as its people are merged
+		for (int k = 0; k < foundCount; k++)
+		{
+			int best = -1;
+			for (int run = 0; run < runs; run++)
+				if (runStart[run] < runEnd[run] && (best < 0 || found[runStart[run]] < found[runStart[best]]))
+					best = run;
+			merged[k] = found[runStart[best]++];
+		}
+		int[] swap = found;
+		found = merged;
+		merged = swap;
+	}
+}
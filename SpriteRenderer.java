@@ -0,0 +1,234 @@
+/**
+ * SpriteRenderer.java
+ *
+ * Draws people by copying pre-rasterized sprites straight into
+ * the pixels of an image (normally the StdDraw canvas), instead
+ * of asking Java2D to fill and stroke a new circle for every
+ * person. One sprite is drawn (with antialiasing) for each viral
+ * state whenever the size of a person on screen changes, and is
+ * then alpha-blended into the image at each person's position.
+ * With many people, the image is split into horizontal bands
+ * that are filled in parallel; each band draws people in the
+ * same order, so the result is the same as drawing them one at
+ * a time. Everything else (text, the graph) is still drawn
+ * through StdDraw.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+public class SpriteRenderer
+{
+	/** The number of people above which bands of rows are filled in parallel */
+	private static final int PARALLEL_THRESHOLD = 2000;
+
+	/** The height of each band of rows that is filled in parallel */
+	private static final int BAND_HEIGHT = 32;
+
+	/** The most different sizes of people that sprites are kept for */
+	private static final int MAX_SIZES = 4;
+
+	/** The fill colors of each viral state (the dead are faded when blended) */
+	private static final Color[] FILLS = {Color.BLACK, Color.RED, Color.GREEN, Palette.DEAD_FILL[255]};
+
+	private double[] radii, pixelRadii;
+	private int[][][] sprites;
+	private int[] spriteSizes;
+	private int sizes;
+	private int[] left, top, set;
+
+	/**
+	 * Instantiates a SpriteRenderer object
+	 */
+	public SpriteRenderer()
+	{
+		radii = new double[MAX_SIZES];
+		pixelRadii = new double[MAX_SIZES];
+		sprites = new int[MAX_SIZES][][];
+		spriteSizes = new int[MAX_SIZES];
+		left = new int[0];
+		top = new int[0];
+		set = new int[0];
+	}
+
+	/**
+	 * Draws every person in the given snapshot onto the canvas
+	 * @param snapshot the snapshot to draw
+	 * @param interpolation how far between the previous and the current tick to draw people (0 to 1)
+	 */
+	public void draw(Snapshot snapshot, double interpolation)
+	{
+		draw(snapshot, interpolation, 0, snapshot.size(), StdDraw.getPixels(), StdDraw.getCanvasWidth(), StdDraw.getCanvasHeight());
+	}
+
+	/**
+	 * Draws some of the people in the given snapshot into the given pixels,
+	 * which must line up with the StdDraw canvas
+	 * @param snapshot the snapshot to draw
+	 * @param interpolation how far between the previous and the current tick to draw people (0 to 1)
+	 * @param from the index of the first person to draw (inclusive)
+	 * @param to the index of the last person to draw (exclusive)
+	 * @param pixels the ARGB pixels to draw into
+	 * @param width the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 */
+	public void draw(Snapshot snapshot, double interpolation, int from, int to, int[] pixels, int width, int height)
+	{
+		if (from >= to)
+			return;
+		if (sizes > 0 && pixelRadii[0] != StdDraw.toScreenLength(radii[0]))
+			sizes = 0;  // the scale changed, so every sprite is the wrong size
+
+		if (left.length < snapshot.size())
+		{
+			left = new int[snapshot.size()];
+			top = new int[snapshot.size()];
+			set = new int[snapshot.size()];
+		}
+		int last = -1;
+		for (int i = from; i < to; i++)
+		{
+			double radius = snapshot.getRadius(i);
+			if (last < 0 || radii[last] != radius)
+				last = findSprites(radius);
+			double half = spriteSizes[last] / 2.0;
+			set[i] = last;
+			left[i] = (int)Math.round(StdDraw.toScreenX(snapshot.getX(i, interpolation)) - half);
+			top[i] = (int)Math.round(StdDraw.toScreenY(snapshot.getY(i, interpolation)) - half);
+		}
+
+		if (to - from < PARALLEL_THRESHOLD)
+		{
+			drawBand(snapshot, from, to, pixels, width, 0, height);
+			return;
+		}
+		int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+		IntStream.range(0, bands).parallel().forEach(band ->
+			drawBand(snapshot, from, to, pixels, width, band * BAND_HEIGHT, Math.min(height, (band + 1) * BAND_HEIGHT)));
+	}
+
+	/**
+	 * Draws the part of some people that falls within the given rows
+	 * @param snapshot the snapshot being drawn
+	 * @param from the index of the first person to draw (inclusive)
+	 * @param to the index of the last person to draw (exclusive)
+	 * @param pixels the pixels to draw into
+	 * @param width the width of the image
+	 * @param fromRow the first row to draw (inclusive)
+	 * @param toRow the last row to draw (exclusive)
+	 */
+	private void drawBand(Snapshot snapshot, int from, int to, int[] pixels, int width, int fromRow, int toRow)
+	{
+		for (int i = from; i < to; i++)
+		{
+			int x0 = left[i], y0 = top[i], size = spriteSizes[set[i]];
+			if (y0 >= toRow || y0 + size <= fromRow || x0 >= width || x0 + size <= 0)
+				continue;
+			int[] sprite = sprites[set[i]][snapshot.getViralState(i)];
+			int alpha = snapshot.getAlpha(i);
+			int rowStart = Math.max(fromRow, y0), rowEnd = Math.min(toRow, y0 + size);
+			int colStart = Math.max(0, x0), colEnd = Math.min(width, x0 + size);
+			for (int row = rowStart; row < rowEnd; row++)
+			{
+				int src = (row - y0) * size + (colStart - x0), dst = row * width + colStart;
+				for (int col = colStart; col < colEnd; col++, src++, dst++)
+					pixels[dst] = blend(sprite[src], pixels[dst], alpha);
+			}
+		}
+	}
+
+	/**
+	 * Blends a sprite pixel over an image pixel
+	 * @param src the sprite pixel (ARGB)
+	 * @param dst the image pixel (ARGB)
+	 * @param alpha the opacity of the whole sprite (0 to 255)
+	 * @return the blended pixel
+	 */
+	private static int blend(int src, int dst, int alpha)
+	{
+		int a = (src >>> 24) * alpha / 255;
+		if (a == 0)
+			return dst;
+		if (a == 255)
+			return src;
+		int dstAlpha = dst >>> 24, inverse = 255 - a;
+		if (dstAlpha == 255)
+		{
+			int r = (((src >> 16) & 255) * a + ((dst >> 16) & 255) * inverse) / 255;
+			int g = (((src >> 8) & 255) * a + ((dst >> 8) & 255) * inverse) / 255;
+			int b = ((src & 255) * a + (dst & 255) * inverse) / 255;
+			return 0xFF000000 | (r << 16) | (g << 8) | b;
+		}
+		// the image is partly transparent (eg. a cached layer), so its alpha has to be combined too
+		int under = dstAlpha * inverse / 255, outAlpha = a + under;
+		int r = (((src >> 16) & 255) * a + ((dst >> 16) & 255) * under) / outAlpha;
+		int g = (((src >> 8) & 255) * a + ((dst >> 8) & 255) * under) / outAlpha;
+		int b = ((src & 255) * a + (dst & 255) * under) / outAlpha;
+		return (outAlpha << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Finds the sprites for people of the given radius, making them if needed
+	 * @param radius the radius of a person in user coordinates
+	 * @return the index of the set of sprites
+	 */
+	private int findSprites(double radius)
+	{
+		for (int i = 0; i < sizes; i++)
+			if (radii[i] == radius)
+				return i;
+		if (sizes == MAX_SIZES)
+			sizes = 0;  // too many sizes to keep them all, so start over
+		makeSprites(sizes, radius);
+		return sizes++;
+	}
+
+	/**
+	 * Rasterizes one sprite for each viral state, matching the way
+	 * Person.draw draws a person of the given radius
+	 * @param index the index of the set of sprites to make
+	 * @param radius the radius of a person in user coordinates
+	 */
+	private void makeSprites(int index, double radius)
+	{
+		double pixelRadius = StdDraw.toScreenLength(radius);
+		int spriteSize = (int)Math.ceil(2 * pixelRadius) + 4;
+		radii[index] = radius;
+		pixelRadii[index] = pixelRadius;
+		spriteSizes[index] = spriteSize;
+		sprites[index] = new int[FILLS.length][];
+		double center = spriteSize / 2.0;
+		Ellipse2D.Double circle = new Ellipse2D.Double(center - pixelRadius, center - pixelRadius, 2 * pixelRadius, 2 * pixelRadius);
+		for (int state = 0; state < FILLS.length; state++)
+		{
+			BufferedImage image = new BufferedImage(spriteSize, spriteSize, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setColor(FILLS[state]);
+			g.fill(circle);
+			// the same stroke widths as StdDraw's default pen and the pen used for the X
+			g.setColor(Color.BLACK);
+			g.setStroke(new BasicStroke(1.024f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+			g.draw(circle);
+			if (state == 3)
+			{
+				g.setColor(Color.RED);
+				g.setStroke(new BasicStroke(2.048f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+				g.draw(new Line2D.Double(center - pixelRadius, center + pixelRadius, center + pixelRadius, center - pixelRadius));
+				g.draw(new Line2D.Double(center - pixelRadius, center - pixelRadius, center + pixelRadius, center + pixelRadius));
+			}
+			g.dispose();
+			sprites[index][state] = image.getRGB(0, 0, spriteSize, spriteSize, null, 0, spriteSize);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * StaticLayer.java
+ *
+ * Caches everything in the simulation that no longer changes
+ * in a transparent off-screen image: the walls, and the dead
+ * people who have finished fading. Dead people fade in the
+ * order that they died, so the ones that have finished form
+ * a prefix of the list of the dead; each one is drawn into
+ * the image once, when it finishes fading. The image is only
+ * redrawn from scratch when the walls, the scale, or the
+ * viewport change, so the cost of a frame stops growing with
+ * the number of deaths.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class StaticLayer
+{
+	private BufferedImage image;
+	private int[] pixels;
+	private Wall[] walls;
+	private final Viewport viewport = new Viewport();
+	private double originX, originY, unit;
+	private int baked;
+
+	/**
+	 * Returns the image holding the walls and the dead people that have finished fading
+	 * @return the image
+	 */
+	public BufferedImage getImage()
+	{
+		return image;
+	}
+
+	/**
+	 * Returns the number of dead people that have been drawn into the layer
+	 * @return the number of dead people drawn
+	 */
+	public int getBaked()
+	{
+		return baked;
+	}
+
+	/**
+	 * Erases the layer and forgets the walls and the dead drawn into it, so
+	 * that it is redrawn from scratch in the next update (eg. when the
+	 * simulation being drawn starts over)
+	 */
+	public void clear()
+	{
+		walls = null;
+		baked = 0;
+		if (pixels != null)
+			Arrays.fill(pixels, 0);
+	}
+
+	/**
+	 * Brings the layer up to date with the given snapshot: redraws it if
+	 * the walls or the scale changed, then draws the dead people who have
+	 * finished fading since the last update
+	 * @param snapshot the snapshot being drawn
+	 * @param sprites the renderer used to draw people
+	 * @return the index in the snapshot of the first person that still has
+	 *         to be drawn every frame
+	 */
+	public int update(Snapshot snapshot, SpriteRenderer sprites)
+	{
+		updateWalls(snapshot, true);
+		int width = StdDraw.getCanvasWidth(), height = StdDraw.getCanvasHeight();
+		int start = snapshot.getDeadStart(), count = snapshot.getDeadCount(), settled = snapshot.getSettled();
+		if (start > baked)
+			return 0;  // the snapshot is missing some of the dead that still need to be drawn
+		if (settled > baked)
+		{
+			sprites.draw(snapshot, 1.0, baked - start, settled - start, pixels, width, height);
+			baked = settled;
+		}
+		return Math.min(count, baked - start);
+	}
+
+	/**
+	 * Redraws the layer if the walls, the scale, or the viewport changed since the last update
+	 * @param snapshot the snapshot being drawn
+	 * @param keepDead whether or not the dead already drawn into the layer should
+	 *                 stay (if not, the layer is left holding only the walls)
+	 */
+	public void updateWalls(Snapshot snapshot, boolean keepDead)
+	{
+		int width = StdDraw.getCanvasWidth(), height = StdDraw.getCanvasHeight();
+		if (image == null || image.getWidth() != width || image.getHeight() != height)
+		{
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+			walls = null;
+		}
+		if (snapshot.getWalls() != walls || StdDraw.toScreenX(0) != originX || StdDraw.toScreenY(0) != originY
+			|| StdDraw.toScreenLength(1) != unit || !viewport.matches(snapshot.getViewport()) || (!keepDead && baked > 0))
+			redrawWalls(snapshot.getWalls(), snapshot.getViewport());
+	}
+
+	/**
+	 * Erases the layer and draws the given walls, so that all of the dead
+	 * have to be drawn into the layer again
+	 * @param walls the walls to draw
+	 * @param viewport the part of the world shown on the canvas
+	 */
+	private void redrawWalls(Wall[] walls, Viewport viewport)
+	{
+		this.walls = walls;
+		this.viewport.set(viewport);
+		originX = StdDraw.toScreenX(0);
+		originY = StdDraw.toScreenY(0);
+		unit = StdDraw.toScreenLength(1);
+		Arrays.fill(pixels, 0);
+		baked = 0;
+		if (walls == null)
+			return;
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		for (Wall curr : walls)
+			drawWall(g, curr, viewport);
+		g.dispose();
+	}
+
+	/**
+	 * Draws a wall onto the layer, lined up with the StdDraw canvas (this is
+	 * kept here rather than in Wall so that a simulation that is never drawn
+	 * does not load the AWT classes it needs)
+	 * @param g the graphics of the layer
+	 * @param wall the wall to draw
+	 * @param viewport the part of the world shown on the canvas
+	 */
+	private static void drawWall(Graphics2D g, Wall wall, Viewport viewport)
+	{
+		double left = StdDraw.toScreenX(viewport.toCanvasX(wall.getCenterX() - wall.getHalfLength())),
+			top = StdDraw.toScreenY(viewport.toCanvasY(wall.getCenterY() + wall.getHalfWidth()));
+		g.setColor(Color.WHITE);
+		g.fill(new Rectangle2D.Double(left, top,
+			StdDraw.toScreenX(viewport.toCanvasX(wall.getCenterX() + wall.getHalfLength())) - left,
+			StdDraw.toScreenY(viewport.toCanvasY(wall.getCenterY() - wall.getHalfWidth())) - top));
+	}
+}
@@ -38,6 +38,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 
@@ -48,6 +50,7 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.WritableRaster;
 
@@ -668,7 +671,7 @@ import javax.swing.KeyStroke;
  *  @author Robert Sedgewick
  *  @author Kevin Wayne
  */
-public final class StdDraw implements ActionListener, MouseListener, MouseMotionListener, KeyListener {
+public final class StdDraw implements ActionListener, MouseListener, MouseMotionListener, MouseWheelListener, KeyListener {
 
     /**
      *  The color black.
@@ -803,6 +806,13 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static BufferedImage offscreenImage, onscreenImage;
     private static Graphics2D offscreen, onscreen;
 
+    // shapes and strokes reused by the drawing methods, so drawing does not allocate
+    private static final Line2D.Double line = new Line2D.Double();
+    private static final Ellipse2D.Double ellipse = new Ellipse2D.Double();
+    private static final Rectangle2D.Double rectangle = new Rectangle2D.Double();
+    private static final BasicStroke[] strokes = new BasicStroke[4];
+    private static int nextStroke = 0;
+
     // singleton for callbacks: avoids generation of extra .class files
     private static StdDraw std = new StdDraw();
 
@@ -813,6 +823,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static boolean isMousePressed = false;
     private static double mouseX = 0;
     private static double mouseY = 0;
+    private static double wheelRotation = 0;
 
     // queue of typed key characters
     private static LinkedList<Character> keysTyped = new LinkedList<Character>();
@@ -889,6 +900,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 
         draw.addMouseListener(std);
         draw.addMouseMotionListener(std);
+        draw.addMouseWheelListener(std);
 
         frame.setContentPane(draw);
         frame.addKeyListener(std);    // JLabel cannot get keyboard focus
@@ -1053,8 +1065,17 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         if (!(radius >= 0)) throw new IllegalArgumentException("pen radius must be nonnegative");
         penRadius = radius;
         float scaledPenRadius = (float) (radius * DEFAULT_SIZE);
+        // reuse the last few strokes, since callers tend to switch back and forth between a couple of radii
+        for (BasicStroke cached : strokes) {
+            if (cached != null && cached.getLineWidth() == scaledPenRadius) {
+                offscreen.setStroke(cached);
+                return;
+            }
+        }
         BasicStroke stroke = new BasicStroke(scaledPenRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
         // BasicStroke stroke = new BasicStroke(scaledPenRadius);
+        strokes[nextStroke] = stroke;
+        nextStroke = (nextStroke + 1) % strokes.length;
         offscreen.setStroke(stroke);
     }
 
@@ -1151,7 +1172,8 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param  y1 the y-coordinate of the other endpoint
      */
     public static void line(double x0, double y0, double x1, double y1) {
-        offscreen.draw(new Line2D.Double(scaleX(x0), scaleY(y0), scaleX(x1), scaleY(y1)));
+        line.setLine(scaleX(x0), scaleY(y0), scaleX(x1), scaleY(y1));
+        offscreen.draw(line);
         draw();
     }
 
@@ -1185,8 +1207,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         // double hs = factorY(2*r);
         // if (ws <= 1 && hs <= 1) pixel(x, y);
         if (scaledPenRadius <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - scaledPenRadius/2, ys - scaledPenRadius/2,
-                                                 scaledPenRadius, scaledPenRadius));
+        else {
+            ellipse.setFrame(xs - scaledPenRadius/2, ys - scaledPenRadius/2, scaledPenRadius, scaledPenRadius);
+            offscreen.fill(ellipse);
+        }
         draw();
     }
 
@@ -1205,7 +1229,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*radius);
         double hs = factorY(2*radius);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            ellipse.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.draw(ellipse);
+        }
         draw();
     }
 
@@ -1224,7 +1251,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*radius);
         double hs = factorY(2*radius);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            ellipse.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.fill(ellipse);
+        }
         draw();
     }
 
@@ -1248,7 +1278,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*semiMajorAxis);
         double hs = factorY(2*semiMinorAxis);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            ellipse.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.draw(ellipse);
+        }
         draw();
     }
 
@@ -1271,7 +1304,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*semiMajorAxis);
         double hs = factorY(2*semiMinorAxis);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            ellipse.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.fill(ellipse);
+        }
         draw();
     }
 
@@ -1315,7 +1351,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*halfLength);
         double hs = factorY(2*halfLength);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            rectangle.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.draw(rectangle);
+        }
         draw();
     }
 
@@ -1334,7 +1373,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*halfLength);
         double hs = factorY(2*halfLength);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            rectangle.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.fill(rectangle);
+        }
         draw();
     }
 
@@ -1356,7 +1398,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*halfWidth);
         double hs = factorY(2*halfHeight);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            rectangle.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.draw(rectangle);
+        }
         draw();
     }
 
@@ -1377,7 +1422,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         double ws = factorX(2*halfWidth);
         double hs = factorY(2*halfHeight);
         if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        else {
+            rectangle.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            offscreen.fill(rectangle);
+        }
         draw();
     }
 
@@ -1520,6 +1568,18 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         throw new IllegalArgumentException("image " + filename + " not found");
     }
 */
+    /**
+     * Draws the specified image stretched to cover the entire canvas.
+     *
+     * @param  image the image to draw
+     * @throws IllegalArgumentException if {@code image} is {@code null}
+     */
+    public static void picture(BufferedImage image) {
+        if (image == null) throw new IllegalArgumentException();
+        offscreen.drawImage(image, 0, 0, width, height, null);
+        draw();
+    }
+
     /**
      * Draws the specified image centered at (x, y).
      * The supported image formats are JPEG, PNG, and GIF.
@@ -1787,6 +1847,71 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     }
 
 
+   /***************************************************************************
+    *  Direct pixel access.
+    ***************************************************************************/
+
+    /**
+     * Returns the pixels of the offscreen canvas as ARGB values, one row after
+     * another. Writing to this array draws directly onto the canvas without
+     * going through Java2D; like the other drawing methods, the changes only
+     * appear on screen after the next call to {@link #show()}.
+     *
+     * @return the pixels of the offscreen canvas
+     */
+    public static int[] getPixels() {
+        return ((DataBufferInt) offscreenImage.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Returns the width of the canvas.
+     *
+     * @return the width of the canvas in pixels
+     */
+    public static int getCanvasWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the canvas.
+     *
+     * @return the height of the canvas in pixels
+     */
+    public static int getCanvasHeight() {
+        return height;
+    }
+
+    /**
+     * Converts an x-coordinate from user coordinates to a pixel column.
+     *
+     * @param  x the x-coordinate in user coordinates
+     * @return the (fractional) pixel column
+     */
+    public static double toScreenX(double x) {
+        return scaleX(x);
+    }
+
+    /**
+     * Converts a y-coordinate from user coordinates to a pixel row.
+     *
+     * @param  y the y-coordinate in user coordinates
+     * @return the (fractional) pixel row
+     */
+    public static double toScreenY(double y) {
+        return scaleY(y);
+    }
+
+    /**
+     * Converts a horizontal length from user coordinates to pixels.
+     *
+     * @param  w the length in user coordinates
+     * @return the length in pixels
+     */
+    public static double toScreenLength(double w) {
+        return factorX(w);
+    }
+
+
    /***************************************************************************
     *  Save drawing to a file.
     ***************************************************************************/
@@ -1904,6 +2029,21 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     }
 
 
+    /**
+     * Returns how far the mouse wheel has been turned since the last call,
+     * and starts counting again from zero.
+     *
+     * @return the number of notches the wheel turned (positive when turned
+     *         towards the user), possibly fractional on high-resolution wheels
+     */
+    public static double nextWheelRotation() {
+        synchronized (mouseLock) {
+            double rotation = wheelRotation;
+            wheelRotation = 0;
+            return rotation;
+        }
+    }
+
     /**
      * This method cannot be called directly.
      */
@@ -1961,6 +2101,18 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         }
     }
 
+    /**
+     * This method cannot be called directly.
+     */
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        synchronized (mouseLock) {
+            mouseX = StdDraw.userX(e.getX());
+            mouseY = StdDraw.userY(e.getY());
+            wheelRotation += e.getPreciseWheelRotation();
+        }
+    }
+
     /**
      * This method cannot be called directly.
      */
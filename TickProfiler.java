@@ -0,0 +1,358 @@
+/**
+ * TickProfiler.java
+ *
+ * Measures where the time of each tick goes, phase by phase, and
+ * counts the work done (pairs of people tested, collisions, and
+ * infections), and publishes it all as an MBean so that a running
+ * simulation can be watched from any JMX client. Reading the
+ * clock around every phase of every person would slow the tick
+ * down noticeably, so only one tick in every sample interval is
+ * timed; on the other ticks lap() returns straight away. The
+ * counters are cheap and are kept for every tick. The renderer
+ * adds how long each frame took to draw and to show.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TickProfiler implements TickProfilerMBean
+{
+	/** The phases that a tick is split into */
+	public enum Phase { STATS, BROAD_PHASE, NARROW_PHASE, WALLS, DISEASE, MOVE, OUTPUT }
+
+	/** The name that the profiler is registered under */
+	public static final String OBJECT_NAME = "VirusSimulation:type=TickProfiler";
+
+	/** The default number of ticks per timed tick */
+	public static final int SAMPLE_INTERVAL = 16;
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final long[] current;
+	private final AtomicLongArray phaseNanos;
+	private final AtomicLong ticks, sampledTicks, tickNanos, frames, renderNanos, presentNanos;
+	private final AtomicLong pairsTested, collisions, infections;
+	private volatile int sampleInterval = SAMPLE_INTERVAL;
+	private long tickStart;
+	private ObjectName name;
+
+	/**
+	 * Instantiates a TickProfiler object with every time and counter at zero
+	 */
+	public TickProfiler()
+	{
+		current = new long[PHASES.length];
+		phaseNanos = new AtomicLongArray(PHASES.length);
+		ticks = new AtomicLong();
+		sampledTicks = new AtomicLong();
+		tickNanos = new AtomicLong();
+		frames = new AtomicLong();
+		renderNanos = new AtomicLong();
+		presentNanos = new AtomicLong();
+		pairsTested = new AtomicLong();
+		collisions = new AtomicLong();
+		infections = new AtomicLong();
+	}
+
+	/**
+	 * Registers the profiler with the platform MBean server, so that JMX
+	 * clients can see it (replacing any profiler already registered)
+	 * @throws JMException if the profiler cannot be registered
+	 */
+	public void register() throws JMException
+	{
+		if (name != null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		server.registerMBean(this, objectName);
+		name = objectName;
+	}
+
+	/**
+	 * Removes the profiler from the platform MBean server, if it was registered
+	 */
+	public void unregister()
+	{
+		if (name == null)
+			return;
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		}
+		catch (JMException e)
+		{
+			// already replaced by another profiler
+		}
+		name = null;
+	}
+
+	/**
+	 * Starts a tick, deciding whether it is timed
+	 * @return the time to pass to the first lap() (0 if the tick is not timed)
+	 */
+	public long beginTick()
+	{
+		if (ticks.getAndIncrement() % sampleInterval != 0)
+			return 0;
+		tickStart = System.nanoTime();
+		return tickStart;
+	}
+
+	/**
+	 * Adds the time since the last lap to a phase of the current tick
+	 * @param phase the phase that just finished
+	 * @param since the time returned by beginTick() or the last lap()
+	 * @return the time to pass to the next lap() (0 if the tick is not timed)
+	 */
+	public long lap(Phase phase, long since)
+	{
+		if (since == 0)
+			return 0;
+		long now = System.nanoTime();
+		current[phase.ordinal()] += now - since;
+		return now;
+	}
+
+	/**
+	 * Finishes a tick, adding its work (and times, if it was timed) to the totals
+	 * @param since the time returned by the last lap() (0 if the tick was not timed)
+	 * @param pairs the number of pairs of people tested for a collision
+	 * @param collided the number of collisions between two people
+	 * @param infected the number of people infected by someone else
+	 */
+	public void endTick(long since, int pairs, int collided, int infected)
+	{
+		pairsTested.addAndGet(pairs);
+		collisions.addAndGet(collided);
+		infections.addAndGet(infected);
+		if (since == 0)
+			return;
+		for (int i = 0; i < current.length; i++)
+		{
+			phaseNanos.addAndGet(i, current[i]);
+			current[i] = 0;
+		}
+		tickNanos.addAndGet(since - tickStart);
+		sampledTicks.incrementAndGet();
+	}
+
+	/**
+	 * Adds one drawn frame
+	 * @param render the time spent drawing the frame off-screen, in nanoseconds
+	 * @param present the time spent showing the frame, in nanoseconds
+	 */
+	public void addFrame(long render, long present)
+	{
+		renderNanos.addAndGet(render);
+		presentNanos.addAndGet(present);
+		frames.incrementAndGet();
+	}
+
+	/**
+	 * Returns the average time spent in a phase over the timed ticks
+	 * @param phase the phase
+	 * @return the time in nanoseconds per tick
+	 */
+	public double getAverageNanos(Phase phase)
+	{
+		long sampled = sampledTicks.get();
+		return sampled == 0 ? 0.0 : phaseNanos.get(phase.ordinal()) / (double)sampled;
+	}
+
+	/**
+	 * Returns the number of ticks run
+	 * @return the number of ticks
+	 */
+	public long getTicks()
+	{
+		return ticks.get();
+	}
+
+	/**
+	 * Returns the number of ticks whose phases were timed
+	 * @return the number of timed ticks
+	 */
+	public long getSampledTicks()
+	{
+		return sampledTicks.get();
+	}
+
+	/**
+	 * Returns how often ticks are timed
+	 * @return the number of ticks per timed tick
+	 */
+	public int getSampleInterval()
+	{
+		return sampleInterval;
+	}
+
+	/**
+	 * Sets how often ticks are timed (1 times every tick)
+	 * @param sampleInterval the number of ticks per timed tick
+	 */
+	public void setSampleInterval(int sampleInterval)
+	{
+		this.sampleInterval = Math.max(1, sampleInterval);
+	}
+
+	/**
+	 * Returns the average time spent counting people in each state for the graph
+	 * @return the time in microseconds per tick
+	 */
+	public double getStatsMicros()
+	{
+		return getAverageNanos(Phase.STATS) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent building the grid and finding nearby people
+	 * @return the time in microseconds per tick
+	 */
+	public double getBroadPhaseMicros()
+	{
+		return getAverageNanos(Phase.BROAD_PHASE) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent checking nearby people for collisions and infections
+	 * @return the time in microseconds per tick
+	 */
+	public double getNarrowPhaseMicros()
+	{
+		return getAverageNanos(Phase.NARROW_PHASE) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent checking people against walls
+	 * @return the time in microseconds per tick
+	 */
+	public double getWallsMicros()
+	{
+		return getAverageNanos(Phase.WALLS) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent updating viral states and fading the dead
+	 * @return the time in microseconds per tick
+	 */
+	public double getDiseaseMicros()
+	{
+		return getAverageNanos(Phase.DISEASE) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent moving people
+	 * @return the time in microseconds per tick
+	 */
+	public double getMoveMicros()
+	{
+		return getAverageNanos(Phase.MOVE) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent writing exports and recordings
+	 * @return the time in microseconds per tick
+	 */
+	public double getOutputMicros()
+	{
+		return getAverageNanos(Phase.OUTPUT) / 1000.0;
+	}
+
+	/**
+	 * Returns the average time of a whole tick
+	 * @return the time in microseconds per tick
+	 */
+	public double getTickMicros()
+	{
+		long sampled = sampledTicks.get();
+		return sampled == 0 ? 0.0 : tickNanos.get() / (double)sampled / 1000.0;
+	}
+
+	/**
+	 * Returns the number of frames drawn
+	 * @return the number of frames
+	 */
+	public long getFrames()
+	{
+		return frames.get();
+	}
+
+	/**
+	 * Returns the average time spent drawing a frame off-screen
+	 * @return the time in microseconds per frame
+	 */
+	public double getRenderMicros()
+	{
+		long count = frames.get();
+		return count == 0 ? 0.0 : renderNanos.get() / (double)count / 1000.0;
+	}
+
+	/**
+	 * Returns the average time spent showing a finished frame on screen
+	 * @return the time in microseconds per frame
+	 */
+	public double getPresentMicros()
+	{
+		long count = frames.get();
+		return count == 0 ? 0.0 : presentNanos.get() / (double)count / 1000.0;
+	}
+
+	/**
+	 * Returns the number of pairs of people checked for a collision
+	 * @return the number of pairs tested
+	 */
+	public long getPairsTested()
+	{
+		return pairsTested.get();
+	}
+
+	/**
+	 * Returns the number of collisions between two people
+	 * @return the number of collisions
+	 */
+	public long getCollisions()
+	{
+		return collisions.get();
+	}
+
+	/**
+	 * Returns the number of people infected by someone else
+	 * @return the number of infections
+	 */
+	public long getInfections()
+	{
+		return infections.get();
+	}
+
+	/**
+	 * Returns the average number of pairs checked per tick
+	 * @return the number of pairs per tick
+	 */
+	public double getPairsPerTick()
+	{
+		long count = ticks.get();
+		return count == 0 ? 0.0 : pairsTested.get() / (double)count;
+	}
+
+	/**
+	 * Sets every time and counter back to zero
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < PHASES.length; i++)
+			phaseNanos.set(i, 0);
+		for (AtomicLong counter : new AtomicLong[] {ticks, sampledTicks, tickNanos, frames, renderNanos, presentNanos,
+			pairsTested, collisions, infections})
+			counter.set(0);
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * TickProfilerMBean.java
+ *
+ * The management interface of TickProfiler, which is what a JMX
+ * client (such as JConsole or VisualVM) sees under
+ * VirusSimulation:type=TickProfiler. Times are averages over the
+ * ticks (or frames) that were timed, in microseconds; counters
+ * are totals since the profiler was created or last reset.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+public interface TickProfilerMBean
+{
+	/**
+	 * Returns the number of ticks run
+	 * @return the number of ticks
+	 */
+	long getTicks();
+
+	/**
+	 * Returns the number of ticks whose phases were timed
+	 * @return the number of timed ticks
+	 */
+	long getSampledTicks();
+
+	/**
+	 * Returns how often ticks are timed
+	 * @return the number of ticks per timed tick
+	 */
+	int getSampleInterval();
+
+	/**
+	 * Sets how often ticks are timed (1 times every tick)
+	 * @param sampleInterval the number of ticks per timed tick
+	 */
+	void setSampleInterval(int sampleInterval);
+
+	/**
+	 * Returns the average time spent counting people in each state for the graph
+	 * @return the time in microseconds per tick
+	 */
+	double getStatsMicros();
+
+	/**
+	 * Returns the average time spent building the grid and finding nearby people
+	 * @return the time in microseconds per tick
+	 */
+	double getBroadPhaseMicros();
+
+	/**
+	 * Returns the average time spent checking nearby people for collisions and infections
+	 * @return the time in microseconds per tick
+	 */
+	double getNarrowPhaseMicros();
+
+	/**
+	 * Returns the average time spent checking people against walls
+	 * @return the time in microseconds per tick
+	 */
+	double getWallsMicros();
+
+	/**
+	 * Returns the average time spent updating viral states and fading the dead
+	 * @return the time in microseconds per tick
+	 */
+	double getDiseaseMicros();
+
+	/**
+	 * Returns the average time spent moving people
+	 * @return the time in microseconds per tick
+	 */
+	double getMoveMicros();
+
+	/**
+	 * Returns the average time spent writing exports and recordings
+	 * @return the time in microseconds per tick
+	 */
+	double getOutputMicros();
+
+	/**
+	 * Returns the average time of a whole tick
+	 * @return the time in microseconds per tick
+	 */
+	double getTickMicros();
+
+	/**
+	 * Returns the number of frames drawn
+	 * @return the number of frames
+	 */
+	long getFrames();
+
+	/**
+	 * Returns the average time spent drawing a frame off-screen
+	 * @return the time in microseconds per frame
+	 */
+	double getRenderMicros();
+
+	/**
+	 * Returns the average time spent showing a finished frame on screen
+	 * @return the time in microseconds per frame
+	 */
+	double getPresentMicros();
+
+	/**
+	 * Returns the number of pairs of people checked for a collision
+	 * @return the number of pairs tested
+	 */
+	long getPairsTested();
+
+	/**
+	 * Returns the number of collisions between two people
+	 * @return the number of collisions
+	 */
+	long getCollisions();
+
+	/**
+	 * Returns the number of people infected by someone else
+	 * @return the number of infections
+	 */
+	long getInfections();
+
+	/**
+	 * Returns the average number of pairs checked per tick
+	 * @return the number of pairs per tick
+	 */
+	double getPairsPerTick();
+
+	/**
+	 * Sets every time and counter back to zero
+	 */
+	void reset();
+}
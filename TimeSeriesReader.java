@@ -0,0 +1,191 @@
+/**
+ * TimeSeriesReader.java
+ *
+ * Reads the files written by TimeSeriesWriter. The header and
+ * index are read when the file is opened (if the writer was never
+ * closed, eg. because its run crashed, the index is rebuilt from
+ * the blocks that the header says were written); a column of one
+ * replica is then read by mapping that replica's blocks (which
+ * are stored one after another) and copying the column out of
+ * each block in bulk, so a curve of millions of ticks comes back
+ * without decoding the file tick by tick.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class TimeSeriesReader implements AutoCloseable
+{
+	/** The columns that can be read, in the order they are stored */
+	public enum Column { HEALTHY, INFECTED, CURED, DEAD, TICK_NANOS }
+
+	private final FileChannel channel;
+	private final int ticksPerBlock, columns, blockSize;
+	private final long[] firstBlock, ticks;
+	private final int[] blockCounts;
+
+	/**
+	 * Opens a time series file and reads its index
+	 * @param file the file to read
+	 * @throws IOException if the file cannot be read or is not a time series file
+	 */
+	public TimeSeriesReader(File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		ByteBuffer header = read(0, TimeSeriesWriter.HEADER_SIZE);
+		if (header.getInt() != TimeSeriesWriter.MAGIC || header.getInt() != TimeSeriesWriter.VERSION)
+		{
+			channel.close();
+			throw new IOException(file + " is not a time series file");
+		}
+		ticksPerBlock = header.getInt();
+		columns = header.getInt();
+		long indexPosition = header.getLong(), blocks = header.getLong();
+		blockSize = TimeSeriesWriter.BLOCK_HEADER_SIZE + 4 * columns * ticksPerBlock;
+
+		int replicas = 0;
+		ByteBuffer index = null;
+		if (indexPosition != 0)
+		{
+			replicas = read(indexPosition, 4).getInt();
+			index = read(indexPosition + 4, 20 * replicas);
+		}
+		else
+			for (long b = 0; b < blocks; b++)
+				replicas = Math.max(replicas, read(getBlockPosition(b), 4).getInt() + 1);
+		firstBlock = new long[replicas];
+		blockCounts = new int[replicas];
+		ticks = new long[replicas];
+		if (index != null)
+			for (int i = 0; i < replicas; i++)
+			{
+				firstBlock[i] = index.getLong();
+				blockCounts[i] = index.getInt();
+				ticks[i] = index.getLong();
+			}
+		else
+		{
+			// going backwards, the first block seen of each replica is its last, and the last seen is its first
+			for (long b = blocks - 1; b >= 0; b--)
+			{
+				ByteBuffer start = read(getBlockPosition(b), TimeSeriesWriter.BLOCK_HEADER_SIZE);
+				int replica = start.getInt(), used = start.getInt();
+				long first = start.getLong();
+				if (blockCounts[replica]++ == 0)
+					ticks[replica] = first + used;
+				firstBlock[replica] = b;
+			}
+		}
+	}
+
+	/**
+	 * Returns where a block starts in the file
+	 * @param block the number of the block
+	 * @return the position of the block
+	 */
+	private long getBlockPosition(long block)
+	{
+		return TimeSeriesWriter.HEADER_SIZE + block * blockSize;
+	}
+
+	/**
+	 * Reads part of the file into a new buffer
+	 * @param position where to start reading
+	 * @param length the number of bytes to read
+	 * @return the bytes, ready to be read
+	 * @throws IOException if the file ends too soon
+	 */
+	private ByteBuffer read(long position, int length) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new IOException("Time series file is truncated");
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Returns the number of replicas in the file
+	 * @return the number of replicas
+	 */
+	public int getReplicaCount()
+	{
+		return ticks.length;
+	}
+
+	/**
+	 * Returns the number of ticks recorded for a replica
+	 * @param replica the replica
+	 * @return the number of ticks
+	 */
+	public long getTickCount(int replica)
+	{
+		return ticks[replica];
+	}
+
+	/**
+	 * Returns whether or not tick durations were stored
+	 * @return whether or not there is a timing column
+	 */
+	public boolean hasTiming()
+	{
+		return columns > Column.TICK_NANOS.ordinal();
+	}
+
+	/**
+	 * Reads one column of a replica, for every tick
+	 * @param replica the replica
+	 * @param column the column
+	 * @return the value of the column at each tick
+	 * @throws IOException if the file cannot be read
+	 */
+	public int[] readColumn(int replica, Column column) throws IOException
+	{
+		int[] values = new int[(int)ticks[replica]];
+		readColumn(replica, column, values);
+		return values;
+	}
+
+	/**
+	 * Reads one column of a replica, for every tick, into the given array
+	 * (which must have room for every tick of the replica)
+	 * @param replica the replica
+	 * @param column the column
+	 * @param values where to put the value of the column at each tick
+	 * @throws IOException if the file cannot be read
+	 */
+	public void readColumn(int replica, Column column, int[] values) throws IOException
+	{
+		if (column.ordinal() >= columns)
+			throw new IllegalArgumentException("The file has no " + column + " column");
+		if (blockCounts[replica] == 0)
+			return;
+		MappedByteBuffer blocks = channel.map(FileChannel.MapMode.READ_ONLY, getBlockPosition(firstBlock[replica]),
+			(long)blockCounts[replica] * blockSize);
+		for (int b = 0; b < blockCounts[replica]; b++)
+		{
+			int start = b * blockSize;
+			int used = blocks.getInt(start + 4);
+			long first = blocks.getLong(start + 8);
+			blocks.position(start + TimeSeriesWriter.BLOCK_HEADER_SIZE + 4 * column.ordinal() * ticksPerBlock);
+			blocks.asIntBuffer().get(values, (int)first, used);
+		}
+	}
+
+	/**
+	 * Closes the file
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
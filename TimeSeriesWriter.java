@@ -0,0 +1,226 @@
+/**
+ * TimeSeriesWriter.java
+ *
+ * Streams the number of people in each compartment (uninfected,
+ * infected, cured, dead) every tick, and optionally how long each
+ * tick took, into a compact binary file. Ticks are grouped into
+ * fixed-size blocks stored column by column, so a reader can pull
+ * one curve out with a few bulk copies. The file is written through
+ * a memory-mapped window that slides along the file as it grows,
+ * so appending a tick is a few array stores. Several runs (replicas)
+ * can be written one after another into the same file. The header
+ * is rewritten after every block, so the file of a run that crashed
+ * before close() can still be read up to its last full block (the
+ * reader rebuilds the index from the blocks themselves).
+ *
+ * The layout, all big-endian, is:
+ *   header:  int magic ("VSTS"), int version, int ticks per block,
+ *            int columns, long index position (0 until the file is
+ *            closed), long block count
+ *   blocks:  int replica, int ticks used, long first tick, then each
+ *            column as (ticks per block) ints
+ *   index:   at the end of the file (which the mapped window may have
+ *            extended past the last block), int replica count, then
+ *            per replica: long first block, int block count, long
+ *            tick count
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TimeSeriesWriter
+{
+	/** The first int of every file ("VSTS") */
+	public static final int MAGIC = 0x56535453;
+
+	/** The version of the layout written */
+	public static final int VERSION = 2;
+
+	/** The size of the header in bytes */
+	public static final int HEADER_SIZE = 32;
+
+	/** The size of the start of each block (replica, ticks used, first tick) in bytes */
+	public static final int BLOCK_HEADER_SIZE = 16;
+
+	/** The number of ticks in each block */
+	public static final int TICKS_PER_BLOCK = 4096;
+
+	/** The most of the file that is mapped at once, in bytes (windows grow with the file up to this size) */
+	private static final long WINDOW_SIZE = 16L << 20;
+
+	private final FileChannel channel;
+	private final int columns, blockSize;
+	private final int[][] block;
+	private final ByteBuffer header;
+	private MappedByteBuffer window;
+	private long windowStart, blocks;
+	private int used, replica;
+	private long tick;
+	private long[] replicaFirstBlock, replicaTicks;
+	private int[] replicaBlocks;
+	private boolean closed;
+
+	/**
+	 * Creates (or replaces) a time series file
+	 * @param file the file to write
+	 * @param timing whether or not to store how long each tick took, as a fifth column
+	 * @throws IOException if the file cannot be created
+	 */
+	public TimeSeriesWriter(File file, boolean timing) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		columns = timing ? 5 : 4;
+		blockSize = BLOCK_HEADER_SIZE + 4 * columns * TICKS_PER_BLOCK;
+		block = new int[columns][TICKS_PER_BLOCK];
+		replica = -1;
+		replicaFirstBlock = new long[4];
+		replicaTicks = new long[4];
+		replicaBlocks = new int[4];
+		header = ByteBuffer.allocateDirect(HEADER_SIZE);
+		writeHeader(0);
+	}
+
+	/**
+	 * Returns whether or not tick durations are stored
+	 * @return whether or not there is a timing column
+	 */
+	public boolean hasTiming()
+	{
+		return columns == 5;
+	}
+
+	/**
+	 * Returns the number of the replica being written
+	 * @return the replica number, or -1 if none has been started
+	 */
+	public int getReplica()
+	{
+		return replica;
+	}
+
+	/**
+	 * Finishes the current replica, if any, and starts the next one from tick 0
+	 * @return the number of the new replica
+	 * @throws IOException if the file cannot be written
+	 */
+	public int beginReplica() throws IOException
+	{
+		flush();
+		replica++;
+		if (replica == replicaBlocks.length)
+		{
+			replicaFirstBlock = Arrays.copyOf(replicaFirstBlock, replica * 2);
+			replicaTicks = Arrays.copyOf(replicaTicks, replica * 2);
+			replicaBlocks = Arrays.copyOf(replicaBlocks, replica * 2);
+		}
+		replicaFirstBlock[replica] = blocks;
+		tick = 0;
+		return replica;
+	}
+
+	/**
+	 * Appends one tick to the current replica
+	 * @param healthy the number of people uninfected
+	 * @param infected the number of people infected
+	 * @param cured the number of people cured
+	 * @param dead the number of people dead
+	 * @param tickNanos how long the tick took in nanoseconds (ignored without a timing column)
+	 * @throws IOException if the file cannot be written
+	 */
+	public void append(int healthy, int infected, int cured, int dead, long tickNanos) throws IOException
+	{
+		if (replica < 0)
+			beginReplica();
+		block[0][used] = healthy;
+		block[1][used] = infected;
+		block[2][used] = cured;
+		block[3][used] = dead;
+		if (columns == 5)
+			block[4][used] = (int)Math.min(Integer.MAX_VALUE, tickNanos);
+		used++;
+		tick++;
+		replicaTicks[replica]++;
+		if (used == TICKS_PER_BLOCK)
+			flush();
+	}
+
+	/**
+	 * Writes the ticks that have been appended but not written yet as a block
+	 * @throws IOException if the file cannot be written
+	 */
+	private void flush() throws IOException
+	{
+		if (used == 0)
+			return;
+		long position = HEADER_SIZE + blocks * blockSize;
+		if (window == null || position + blockSize > windowStart + window.capacity())
+		{
+			// a window as big as the file so far, so that the index of a short run is not written after a mostly empty window
+			windowStart = position;
+			window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(blockSize, Math.min(WINDOW_SIZE, position)));
+		}
+		window.position((int)(position - windowStart));
+		window.putInt(replica).putInt(used).putLong(tick - used);
+		for (int[] column : block)
+		{
+			window.asIntBuffer().put(column, 0, TICKS_PER_BLOCK);
+			window.position(window.position() + 4 * TICKS_PER_BLOCK);
+		}
+		blocks++;
+		replicaBlocks[replica]++;
+		used = 0;
+		writeHeader(0);
+	}
+
+	/**
+	 * Writes the header with the current number of blocks
+	 * @param indexPosition where the index starts, or 0 if it has not been written yet
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeHeader(long indexPosition) throws IOException
+	{
+		header.clear();
+		header.putInt(MAGIC).putInt(VERSION).putInt(TICKS_PER_BLOCK).putInt(columns).putLong(indexPosition).putLong(blocks);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header, header.position());
+	}
+
+	/**
+	 * Writes the last block, the index, and the header, and closes the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+		closed = true;
+		flush();
+		if (window != null)
+			window.force();
+		// the index goes after whatever the window mapped, rather than cutting the file back to the last
+		// block: truncating a file that is still mapped fails on some systems (eg. Windows), and the
+		// window stays mapped until it is garbage collected
+		long indexPosition = channel.size();
+
+		int replicas = replica + 1;
+		ByteBuffer index = ByteBuffer.allocate(4 + 20 * replicas);
+		index.putInt(replicas);
+		for (int i = 0; i < replicas; i++)
+			index.putLong(replicaFirstBlock[i]).putInt(replicaBlocks[i]).putLong(replicaTicks[i]);
+		index.flip();
+		while (index.hasRemaining())
+			channel.write(index, indexPosition + index.position());
+		writeHeader(indexPosition);
+		channel.close();
+	}
+}
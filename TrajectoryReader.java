@@ -0,0 +1,296 @@
+/**
+ * TrajectoryReader.java
+ *
+ * Plays back the files written by TrajectoryWriter. The file is
+ * mapped into memory, and the reader keeps the state of every
+ * person at the current tick, which it moves forward by applying
+ * one frame at a time. Seeking jumps to the last keyframe at or
+ * before the wanted tick (found in the index) and applies the
+ * frames after it, so it never decodes more than one keyframe
+ * interval of frames. The number of people in each state at each
+ * tick is stored outside of the frames' payloads, so it can be
+ * read for a range of ticks without decoding anyone's position.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TrajectoryReader
+{
+	private final MappedByteBuffer data;
+	private final int people, keyframeInterval;
+	private final double quantum, radius;
+	private final long lastTick, indexPosition;
+	private final Wall[] walls;
+	private final long[] keyframeTicks, keyframePositions;
+	private final int[] x, y, state, alpha, counts;
+	private long tick;
+
+	/**
+	 * Opens a trajectory file and moves to its first tick
+	 * @param file the file to read
+	 * @throws IOException if the file cannot be read or is not a trajectory file
+	 */
+	public TrajectoryReader(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to map");
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (data.capacity() < TrajectoryWriter.HEADER_SIZE || data.getInt() != TrajectoryWriter.MAGIC
+			|| data.getInt() != TrajectoryWriter.VERSION)
+			throw new IOException(file + " is not a trajectory file");
+		people = data.getInt();
+		keyframeInterval = data.getInt();
+		quantum = data.getDouble();
+		radius = data.getDouble();
+		indexPosition = data.getLong();
+		lastTick = data.getLong();
+		if (indexPosition == 0)
+			throw new IOException(file + " was not closed properly");
+		walls = new Wall[data.getInt()];
+		for (int i = 0; i < walls.length; i++)
+			walls[i] = new Wall(data);
+
+		data.position((int)indexPosition);
+		int keyframes = data.getInt();
+		keyframeTicks = new long[keyframes];
+		keyframePositions = new long[keyframes];
+		for (int i = 0; i < keyframes; i++)
+		{
+			keyframeTicks[i] = data.getLong();
+			keyframePositions[i] = data.getLong();
+		}
+		x = new int[people];
+		y = new int[people];
+		state = new int[people];
+		alpha = new int[people];
+		counts = new int[4];
+		if (keyframes == 0)
+			throw new IOException(file + " holds no frames");
+		seek(keyframeTicks[0]);
+	}
+
+	/**
+	 * Returns the number of people in the recording
+	 * @return the number of people
+	 */
+	public int getPeople()
+	{
+		return people;
+	}
+
+	/**
+	 * Returns the radius of every person
+	 * @return the radius
+	 */
+	public double getRadius()
+	{
+		return radius;
+	}
+
+	/**
+	 * Returns the walls of the simulation
+	 * @return the walls
+	 */
+	public Wall[] getWalls()
+	{
+		return walls;
+	}
+
+	/**
+	 * Returns the number of ticks between keyframes
+	 * @return the keyframe interval
+	 */
+	public int getKeyframeInterval()
+	{
+		return keyframeInterval;
+	}
+
+	/**
+	 * Returns the first tick in the recording
+	 * @return the first tick
+	 */
+	public long getFirstTick()
+	{
+		return keyframeTicks[0];
+	}
+
+	/**
+	 * Returns the last tick in the recording
+	 * @return the last tick
+	 */
+	public long getLastTick()
+	{
+		return lastTick;
+	}
+
+	/**
+	 * Returns the tick that the reader is at
+	 * @return the current tick
+	 */
+	public long getTick()
+	{
+		return tick;
+	}
+
+	/**
+	 * Returns the x position of a person at the current tick
+	 * @param id the id of the person
+	 * @return the x position
+	 */
+	public double getX(int id)
+	{
+		return x[id] * quantum;
+	}
+
+	/**
+	 * Returns the y position of a person at the current tick
+	 * @param id the id of the person
+	 * @return the y position
+	 */
+	public double getY(int id)
+	{
+		return y[id] * quantum;
+	}
+
+	/**
+	 * Returns the viral state of a person at the current tick
+	 * @param id the id of the person
+	 * @return the viral state
+	 */
+	public int getViralState(int id)
+	{
+		return state[id];
+	}
+
+	/**
+	 * Returns how faded a person is at the current tick
+	 * @param id the id of the person
+	 * @return the alpha (0 to 255)
+	 */
+	public int getAlpha(int id)
+	{
+		return alpha[id];
+	}
+
+	/**
+	 * Returns the number of people in a viral state at the current tick
+	 * @param viralState the viral state (0 uninfected, 1 infected, 2 cured, 3 dead)
+	 * @return the number of people
+	 */
+	public int getCount(int viralState)
+	{
+		return counts[viralState];
+	}
+
+	/**
+	 * Moves to the next tick in the recording
+	 * @return whether there was a next tick (false at the end of the recording)
+	 */
+	public boolean next()
+	{
+		if (data.position() >= indexPosition)
+			return false;
+		readFrame(true);
+		return true;
+	}
+
+	/**
+	 * Moves to the given tick (or the closest tick in the recording)
+	 * @param target the tick to move to
+	 */
+	public void seek(long target)
+	{
+		int k = Arrays.binarySearch(keyframeTicks, target);
+		if (k < 0)
+			k = Math.max(0, -k - 2);
+		data.position((int)keyframePositions[k]);
+		readFrame(true);
+		while (tick < target && next())
+			;
+	}
+
+	/**
+	 * Reads the number of people in each state for a range of ticks, without
+	 * decoding positions, and leaves the reader at the last tick read
+	 * @param from the first tick to read
+	 * @param history where to add the fractions of people in each state, one entry per tick
+	 * @param to the last tick to read
+	 */
+	public void readCounts(long from, long to, History history)
+	{
+		int k = Arrays.binarySearch(keyframeTicks, from);
+		if (k < 0)
+			k = Math.max(0, -k - 2);
+		data.position((int)keyframePositions[k]);
+		while (data.position() < indexPosition)
+		{
+			readFrame(false);
+			if (tick >= from)
+			{
+				double total = Math.max(1, counts[0] + counts[1] + counts[2] + counts[3]);
+				history.add(counts[0] / total, counts[1] / total, counts[2] / total, counts[3] / total);
+			}
+			if (tick >= to)
+				break;
+		}
+		seek(tick);
+	}
+
+	/**
+	 * Reads the frame at the current position
+	 * @param apply whether to decode the payload (otherwise only the tick and counts are read)
+	 */
+	private void readFrame(boolean apply)
+	{
+		boolean keyframe = data.get() == 1;
+		tick = TrajectoryWriter.getVarint(data);
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = (int)TrajectoryWriter.getVarint(data);
+		int length = (int)TrajectoryWriter.getVarint(data), end = data.position() + length;
+		if (!apply)
+		{
+			data.position(end);
+			return;
+		}
+		if (keyframe)
+			for (int id = 0; id < people; id++)
+			{
+				x[id] = (int)TrajectoryWriter.unzigzag(TrajectoryWriter.getVarint(data));
+				y[id] = (int)TrajectoryWriter.unzigzag(TrajectoryWriter.getVarint(data));
+				state[id] = (int)TrajectoryWriter.getVarint(data);
+				alpha[id] = (int)TrajectoryWriter.getVarint(data);
+			}
+		else
+		{
+			for (int n = (int)TrajectoryWriter.getVarint(data), id = -1; n > 0; n--)
+			{
+				id += (int)TrajectoryWriter.getVarint(data) + 1;
+				x[id] += (int)TrajectoryWriter.unzigzag(TrajectoryWriter.getVarint(data));
+				y[id] += (int)TrajectoryWriter.unzigzag(TrajectoryWriter.getVarint(data));
+			}
+			for (int n = (int)TrajectoryWriter.getVarint(data), id = -1; n > 0; n--)
+			{
+				id += (int)TrajectoryWriter.getVarint(data) + 1;
+				state[id] = (int)TrajectoryWriter.getVarint(data);
+			}
+			for (int n = (int)TrajectoryWriter.getVarint(data), id = -1; n > 0; n--)
+			{
+				id += (int)TrajectoryWriter.getVarint(data) + 1;
+				alpha[id] = (int)TrajectoryWriter.getVarint(data);
+			}
+		}
+		data.position(end);
+	}
+}
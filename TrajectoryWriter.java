@@ -0,0 +1,306 @@
+/**
+ * TrajectoryWriter.java
+ *
+ * Records where every person is and what state they are in at
+ * every tick, so that a run can be replayed (and scrubbed
+ * through) later without running the physics again. Positions
+ * are rounded to a fixed quantum and stored as integers. Every
+ * so many ticks a keyframe holds everyone's full state; the
+ * frames between hold only what changed since the tick before:
+ * the people who moved and by how much, and the people whose
+ * viral state or fade changed. All numbers are written as
+ * variable-length integers (small values take one byte), and
+ * signed differences are zig-zag encoded so that small negative
+ * moves are small too. An index of keyframes is written at the
+ * end, so a reader can jump to any tick by decoding at most one
+ * keyframe interval of frames.
+ *
+ * The layout, with fixed-size fields big-endian, is:
+ *   header:  int magic ("VSTR"), int version, int people,
+ *            int keyframe interval, double quantum, double radius,
+ *            long index position, long last tick, int walls,
+ *            then each wall as written by Wall.write
+ *   frames:  byte type (1 keyframe, 0 delta), then varints: tick,
+ *            uninfected, infected, cured, dead, payload length,
+ *            followed by the payload
+ *   index:   int keyframes, then per keyframe: long tick, long position
+ *
+ * A keyframe payload is, for each person by id, zig-zag x and y,
+ * state, and fade. A delta payload is three lists, each a count
+ * followed by entries that start with the gap in ids since the
+ * previous entry: moves (zig-zag dx, dy), state changes (state),
+ * and fade changes (fade).
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TrajectoryWriter
+{
+	/** The first int of every file ("VSTR") */
+	public static final int MAGIC = 0x56535452;
+
+	/** The version of the layout written */
+	public static final int VERSION = 1;
+
+	/** The size of the fixed part of the header in bytes (before the walls) */
+	public static final int HEADER_SIZE = 52;
+
+	/** The default size that positions are rounded to, in world units */
+	public static final double QUANTUM = 0.001;
+
+	private final FileChannel channel;
+	private final int people, keyframeInterval;
+	private final double quantum;
+	private final int[] x, y, state, alpha, lastX, lastY, lastState, lastAlpha;
+	private final int[] counts;
+	private ByteBuffer frame, frameStart;
+	private long[] keyframeTicks, keyframePositions;
+	private int keyframes;
+	private long position, tick, lastTick;
+	private boolean written, closed;
+
+	/**
+	 * Creates (or replaces) a trajectory file
+	 * @param file the file to write
+	 * @param people the number of people in the simulation (ids 0 to people - 1)
+	 * @param radius the radius of every person
+	 * @param walls the walls of the simulation
+	 * @param keyframeInterval the number of ticks between keyframes
+	 * @throws IOException if the file cannot be created
+	 */
+	public TrajectoryWriter(File file, int people, double radius, Wall[] walls, int keyframeInterval) throws IOException
+	{
+		this.people = people;
+		this.keyframeInterval = Math.max(1, keyframeInterval);
+		quantum = QUANTUM;
+		x = new int[people];
+		y = new int[people];
+		state = new int[people];
+		alpha = new int[people];
+		lastX = new int[people];
+		lastY = new int[people];
+		lastState = new int[people];
+		lastAlpha = new int[people];
+		counts = new int[4];
+		frame = ByteBuffer.allocate(64 + 32 * people);
+		frameStart = ByteBuffer.allocate(1 + 6 * 10);
+		keyframeTicks = new long[16];
+		keyframePositions = new long[16];
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 32 * walls.length);
+		header.putInt(MAGIC).putInt(VERSION).putInt(people).putInt(this.keyframeInterval).putDouble(quantum)
+			.putDouble(radius).putLong(0).putLong(0).putInt(walls.length);
+		for (Wall curr : walls)
+			curr.write(header);
+		header.flip();
+		write(header);
+	}
+
+	/**
+	 * Starts recording the state of everyone at the given tick; every
+	 * person must then be added before the frame is ended
+	 * @param tick the tick being recorded
+	 */
+	public void beginFrame(long tick)
+	{
+		this.tick = tick;
+		Arrays.fill(counts, 0);
+	}
+
+	/**
+	 * Records the state of one person in the current frame
+	 * @param p the person
+	 */
+	public void add(Person p)
+	{
+		int id = p.getId();
+		x[id] = (int)Math.round(p.getX() / quantum);
+		y[id] = (int)Math.round(p.getY() / quantum);
+		state[id] = p.getViralState();
+		alpha[id] = p.getAlpha();
+		counts[state[id]]++;
+	}
+
+	/**
+	 * Encodes the current frame (as a keyframe if one is due) and writes it
+	 * @throws IOException if the file cannot be written
+	 */
+	public void endFrame() throws IOException
+	{
+		boolean keyframe = !written || tick / keyframeInterval != lastTick / keyframeInterval;
+		frame.clear();
+		if (keyframe)
+			for (int id = 0; id < people; id++)
+			{
+				putVarint(frame, zigzag(x[id]));
+				putVarint(frame, zigzag(y[id]));
+				putVarint(frame, state[id]);
+				putVarint(frame, alpha[id]);
+			}
+		else
+		{
+			putChanges(x, lastX, y, lastY);
+			putChanges(state, lastState, null, null);
+			putChanges(alpha, lastAlpha, null, null);
+		}
+		frame.flip();
+
+		if (keyframe)
+		{
+			if (keyframes == keyframeTicks.length)
+			{
+				keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+				keyframePositions = Arrays.copyOf(keyframePositions, keyframes * 2);
+			}
+			keyframeTicks[keyframes] = tick;
+			keyframePositions[keyframes++] = position;
+		}
+		frameStart.clear();
+		frameStart.put((byte)(keyframe ? 1 : 0));
+		putVarint(frameStart, tick);
+		for (int count : counts)
+			putVarint(frameStart, count);
+		putVarint(frameStart, frame.remaining());
+		frameStart.flip();
+		write(frameStart);
+		write(frame);
+
+		System.arraycopy(x, 0, lastX, 0, people);
+		System.arraycopy(y, 0, lastY, 0, people);
+		System.arraycopy(state, 0, lastState, 0, people);
+		System.arraycopy(alpha, 0, lastAlpha, 0, people);
+		lastTick = tick;
+		written = true;
+	}
+
+	/**
+	 * Writes the list of people whose values changed since the last frame
+	 * @param values the values in this frame
+	 * @param last the values in the last frame
+	 * @param values2 a second value that changes along with the first (eg. y with x), or null
+	 * @param last2 the second values in the last frame, or null
+	 */
+	private void putChanges(int[] values, int[] last, int[] values2, int[] last2)
+	{
+		int changed = 0;
+		for (int id = 0; id < people; id++)
+			if (values[id] != last[id] || (values2 != null && values2[id] != last2[id]))
+				changed++;
+		putVarint(frame, changed);
+		int previous = -1;
+		for (int id = 0; id < people && changed > 0; id++)
+			if (values[id] != last[id] || (values2 != null && values2[id] != last2[id]))
+			{
+				putVarint(frame, id - previous - 1);
+				previous = id;
+				changed--;
+				if (values2 == null)
+					putVarint(frame, values[id]);
+				else
+				{
+					putVarint(frame, zigzag(values[id] - last[id]));
+					putVarint(frame, zigzag(values2[id] - last2[id]));
+				}
+			}
+	}
+
+	/**
+	 * Writes the keyframe index and finishes the header, then closes the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+		closed = true;
+		long indexPosition = position;
+		ByteBuffer index = ByteBuffer.allocate(4 + 16 * keyframes);
+		index.putInt(keyframes);
+		for (int i = 0; i < keyframes; i++)
+			index.putLong(keyframeTicks[i]).putLong(keyframePositions[i]);
+		index.flip();
+		write(index);
+
+		ByteBuffer end = ByteBuffer.allocate(16);
+		end.putLong(indexPosition).putLong(lastTick);
+		end.flip();
+		while (end.hasRemaining())
+			channel.write(end, 32 + end.position());
+		channel.close();
+	}
+
+	/**
+	 * Appends bytes to the file
+	 * @param bytes the bytes, ready to be read
+	 * @throws IOException if the file cannot be written
+	 */
+	private void write(ByteBuffer bytes) throws IOException
+	{
+		position += bytes.remaining();
+		while (bytes.hasRemaining())
+			channel.write(bytes);
+	}
+
+	/**
+	 * Maps a signed number to an unsigned one so that numbers near zero stay small
+	 * @param value the signed number
+	 * @return the zig-zag encoded number
+	 */
+	public static long zigzag(long value)
+	{
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Undoes zigzag()
+	 * @param value the zig-zag encoded number
+	 * @return the signed number
+	 */
+	public static long unzigzag(long value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes a non-negative number in 7-bit groups, lowest first, with the top
+	 * bit of each byte set when more bytes follow
+	 * @param out where to write the number
+	 * @param value the number
+	 */
+	public static void putVarint(ByteBuffer out, long value)
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte)value);
+	}
+
+	/**
+	 * Reads a number written by putVarint()
+	 * @param in where to read the number from
+	 * @return the number
+	 */
+	public static long getVarint(ByteBuffer in)
+	{
+		long value = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			byte b = in.get();
+			value |= (long)(b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * TripleBuffer.java
+ *
+ * A lock-free triple buffer that hands the most recent value
+ * from a single producer thread to a single consumer thread.
+ * The producer always writes into its own back buffer and then
+ * publishes it by swapping it with the shared middle buffer;
+ * the consumer swaps the middle buffer with its front buffer
+ * whenever something new has been published. Neither side
+ * ever waits for the other, and a slow consumer simply skips
+ * the values that were published in between.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TripleBuffer<T>
+{
+	/** Set in the shared state when the middle buffer holds an unread value */
+	private static final int FRESH = 4;
+
+	/** Masks the index of the middle buffer out of the shared state */
+	private static final int INDEX = 3;
+
+	private final Object[] buffers;
+	private final AtomicInteger middle;
+	private int back, front;
+
+	/**
+	 * Instantiates a TripleBuffer object
+	 * @param first the first of the three buffers
+	 * @param second the second of the three buffers
+	 * @param third the third of the three buffers
+	 */
+	public TripleBuffer(T first, T second, T third)
+	{
+		buffers = new Object[] {first, second, third};
+		front = 0;
+		back = 1;
+		middle = new AtomicInteger(2);
+	}
+
+	/**
+	 * Returns the buffer that the producer should write the next value into.
+	 * Only the producer thread may call this method.
+	 * @return the back buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack()
+	{
+		return (T)buffers[back];
+	}
+
+	/**
+	 * Publishes the back buffer so that it can be read by the consumer.
+	 * Only the producer thread may call this method.
+	 */
+	public void publish()
+	{
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Determines if a value has been published that the consumer has not read
+	 * @return whether or not there is a new value
+	 */
+	public boolean hasFresh()
+	{
+		return (middle.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Returns the most recently published value. If nothing new has been
+	 * published since the last call, the same value is returned again.
+	 * Only the consumer thread may call this method.
+	 * @return the front buffer, updated to the latest published value
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire()
+	{
+		if (hasFresh())
+			front = middle.getAndSet(front) & INDEX;
+		return (T)buffers[front];
+	}
+}
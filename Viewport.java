@@ -0,0 +1,206 @@
+/**
+ * Viewport.java
+ *
+ * The part of the world that is shown on the canvas. The world
+ * always spans -10 to 10 on both axes; the viewport is a square
+ * given by its center and half of its width, and is mapped onto
+ * the canvas's own -10 to 10 scale, so that the graph, buttons,
+ * and text drawn in canvas coordinates stay put while the world
+ * is zoomed and panned underneath them.
+ *
+ * @author agent
+ * @since 10/19/2026
+ */
+
+public class Viewport
+{
+	/** Half of the width of the world (and of the canvas's scale) */
+	public static final double WORLD = 10.0;
+
+	/** The smallest and largest half-widths that can be zoomed to */
+	public static final double MIN_HALF_SIZE = 0.25, MAX_HALF_SIZE = 80.0;
+
+	private double centerX, centerY, halfSize;
+
+	/**
+	 * Instantiates a Viewport object showing the whole world
+	 */
+	public Viewport()
+	{
+		reset();
+	}
+
+	/**
+	 * Shows the whole world again
+	 */
+	public void reset()
+	{
+		centerX = centerY = 0.0;
+		halfSize = WORLD;
+	}
+
+	/**
+	 * Makes this viewport show the same part of the world as another one
+	 * @param other the viewport to copy
+	 */
+	public void set(Viewport other)
+	{
+		centerX = other.centerX;
+		centerY = other.centerY;
+		halfSize = other.halfSize;
+	}
+
+	/**
+	 * Determines if this viewport shows the same part of the world as another one
+	 * @param other the viewport to compare with
+	 * @return whether or not the viewports match
+	 */
+	public boolean matches(Viewport other)
+	{
+		return other != null && centerX == other.centerX && centerY == other.centerY && halfSize == other.halfSize;
+	}
+
+	/**
+	 * Zooms in or out, keeping the point of the world under the given
+	 * canvas position in the same place
+	 * @param factor how much to multiply the width of the viewport by (less than 1 zooms in)
+	 * @param canvasX the x position to zoom about, in canvas coordinates
+	 * @param canvasY the y position to zoom about, in canvas coordinates
+	 */
+	public void zoom(double factor, double canvasX, double canvasY)
+	{
+		double worldX = toWorldX(canvasX), worldY = toWorldY(canvasY);
+		halfSize = Math.max(MIN_HALF_SIZE, Math.min(MAX_HALF_SIZE, halfSize * factor));
+		centerX = worldX - canvasX * halfSize / WORLD;
+		centerY = worldY - canvasY * halfSize / WORLD;
+		clampCenter();
+	}
+
+	/**
+	 * Moves the viewport so that the world follows the mouse
+	 * @param canvasDX how far the mouse moved horizontally, in canvas coordinates
+	 * @param canvasDY how far the mouse moved vertically, in canvas coordinates
+	 */
+	public void pan(double canvasDX, double canvasDY)
+	{
+		centerX -= canvasDX * halfSize / WORLD;
+		centerY -= canvasDY * halfSize / WORLD;
+		clampCenter();
+	}
+
+	/**
+	 * Keeps the center of the viewport inside the world
+	 */
+	private void clampCenter()
+	{
+		centerX = Math.max(-WORLD, Math.min(WORLD, centerX));
+		centerY = Math.max(-WORLD, Math.min(WORLD, centerY));
+	}
+
+	/**
+	 * Determines if the whole world is inside the viewport, so that nothing can be culled
+	 * @return whether or not the whole world is shown
+	 */
+	public boolean showsWholeWorld()
+	{
+		return Math.abs(centerX) + WORLD <= halfSize && Math.abs(centerY) + WORLD <= halfSize;
+	}
+
+	/**
+	 * Determines if a circle in the world overlaps the viewport
+	 * @param x the x position of the center of the circle
+	 * @param y the y position of the center of the circle
+	 * @param radius the radius of the circle
+	 * @return whether or not any of the circle might be shown
+	 */
+	public boolean overlaps(double x, double y, double radius)
+	{
+		return Math.abs(x - centerX) <= halfSize + radius && Math.abs(y - centerY) <= halfSize + radius;
+	}
+
+	/**
+	 * Returns the smallest x position in the world that is shown
+	 * @return the left edge of the viewport
+	 */
+	public double getMinX()
+	{
+		return centerX - halfSize;
+	}
+
+	/**
+	 * Returns the largest x position in the world that is shown
+	 * @return the right edge of the viewport
+	 */
+	public double getMaxX()
+	{
+		return centerX + halfSize;
+	}
+
+	/**
+	 * Returns the smallest y position in the world that is shown
+	 * @return the bottom edge of the viewport
+	 */
+	public double getMinY()
+	{
+		return centerY - halfSize;
+	}
+
+	/**
+	 * Returns the largest y position in the world that is shown
+	 * @return the top edge of the viewport
+	 */
+	public double getMaxY()
+	{
+		return centerY + halfSize;
+	}
+
+	/**
+	 * Converts an x position in the world to canvas coordinates
+	 * @param x the x position in the world
+	 * @return the x position on the canvas
+	 */
+	public double toCanvasX(double x)
+	{
+		return (x - centerX) * WORLD / halfSize;
+	}
+
+	/**
+	 * Converts a y position in the world to canvas coordinates
+	 * @param y the y position in the world
+	 * @return the y position on the canvas
+	 */
+	public double toCanvasY(double y)
+	{
+		return (y - centerY) * WORLD / halfSize;
+	}
+
+	/**
+	 * Converts a length in the world to canvas coordinates
+	 * @param length the length in the world
+	 * @return the length on the canvas
+	 */
+	public double toCanvasLength(double length)
+	{
+		return length * WORLD / halfSize;
+	}
+
+	/**
+	 * Converts an x position on the canvas to world coordinates
+	 * @param x the x position on the canvas
+	 * @return the x position in the world
+	 */
+	public double toWorldX(double x)
+	{
+		return centerX + x * halfSize / WORLD;
+	}
+
+	/**
+	 * Converts a y position on the canvas to world coordinates
+	 * @param y the y position on the canvas
+	 * @return the y position in the world
+	 */
+	public double toWorldY(double y)
+	{
+		return centerY + y * halfSize / WORLD;
+	}
+}
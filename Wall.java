@@ -10,6 +10,8 @@
  * @since 4/7/2020
  */
 
+import java.nio.ByteBuffer;
+
 public class Wall
 {
     private double centerX, centerY, halfLength, halfWidth;
@@ -29,13 +31,69 @@ public class Wall
         this.halfWidth = halfWidth;
     }
 
+    /**
+     * Initializes a Wall object from a checkpoint written by write()
+     * @param in the checkpoint, positioned at the start of the wall
+     */
+    public Wall(ByteBuffer in)
+    {
+        this(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes the wall's geometry to a checkpoint
+     * @param out where to write the wall
+     */
+    public void write(ByteBuffer out)
+    {
+        out.putDouble(centerX).putDouble(centerY).putDouble(halfLength).putDouble(halfWidth);
+    }
+
     /**
      * Draws the wall
+     * @param viewport the part of the world shown on the canvas
      */
-    public void draw()
+    public void draw(Viewport viewport)
     {
         StdDraw.setPenColor(StdDraw.WHITE);
-        StdDraw.filledRectangle(centerX, centerY, halfLength, halfWidth);
+        StdDraw.filledRectangle(viewport.toCanvasX(centerX), viewport.toCanvasY(centerY),
+            viewport.toCanvasLength(halfLength), viewport.toCanvasLength(halfWidth));
+    }
+
+    /**
+     * Returns the x coordinate of the center of the wall
+     * @return the center x coordinate
+     */
+    public double getCenterX()
+    {
+        return centerX;
+    }
+
+    /**
+     * Returns the y coordinate of the center of the wall
+     * @return the center y coordinate
+     */
+    public double getCenterY()
+    {
+        return centerY;
+    }
+
+    /**
+     * Returns half the length of the wall (horizontally)
+     * @return half the length
+     */
+    public double getHalfLength()
+    {
+        return halfLength;
+    }
+
+    /**
+     * Returns half the width of the wall (vertically)
+     * @return half the width
+     */
+    public double getHalfWidth()
+    {
+        return halfWidth;
     }
 
     /**